@@ -0,0 +1,91 @@
+package Voronoi.bench;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.Point;
+import Voronoi.Triangle;
+import Voronoi.Triangulation;
+import Voronoi.VoronoiDiagram;
+
+/**
+ * Extracting every Voronoi cell of a diagram, the work done by
+ * VoronoiPanel on each repaint, from scratch and from the cell cache
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DiagramBench {
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000"})
+	public int n;
+
+	private Triangulation dt;
+	private Triangle initial;
+	private VoronoiDiagram voronoi;
+	private Random random = new Random(42);
+
+	@Setup
+	public void setup() {
+		initial = Inputs.initialTriangle();
+		dt = new Triangulation(initial);
+		dt.delaunayPlaceAll(Inputs.generate(distribution, n, 42));
+		voronoi = new VoronoiDiagram(dt);
+		cachedCells();
+	}
+
+	@Benchmark
+	public int allCells() {
+		int vertices = 0;
+		HashSet<Point> done = new HashSet<Point>(initial);
+		for(Triangle tri : dt)
+			for(Point p : tri) {
+				if(done.contains(p)) continue;
+				done.add(p);
+				List<Triangle> fan = dt.surroundingTriangles(p, tri);
+				Point[] cell = new Point[fan.size()];
+				int j = 0;
+				for(Triangle t : fan) cell[j++] = t.getCircumcenter();
+				vertices += cell.length;
+			}
+		return vertices;
+	}
+
+	@Benchmark
+	public int cachedCells() {
+		int vertices = 0;
+		for(int v=0;v<voronoi.vertexCount();v++)
+			if(voronoi.site(v) != null) vertices += voronoi.cell(v).length/2;
+		return vertices;
+	}
+
+	@Benchmark
+	public int insertAndRepaint() {
+		dt.delaunayPlace(new Point(Inputs.SIZE*random.nextDouble(), Inputs.SIZE*random.nextDouble()));
+		return cachedCells();
+	}
+
+}
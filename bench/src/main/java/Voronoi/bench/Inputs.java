@@ -0,0 +1,84 @@
+package Voronoi.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Voronoi.Point;
+import Voronoi.Triangle;
+import Voronoi.Triangulation;
+
+/**
+ * Point sets the benchmarks run on. All of them lie in [0,1000)^2,
+ * well inside the initial triangle used by VoronoiPanel.
+ *
+ * @author sohit
+ *
+ */
+public class Inputs {
+
+	public static final double SIZE = 1000;
+	public static final int INITIAL_SIZE = 10000;
+
+	public enum Distribution { UNIFORM, CLUSTERED, GRID, COCIRCULAR }
+
+	private Inputs() {}
+
+	public static List<Point> generate(Distribution distribution, int n, long seed) {
+		Random random = new Random(seed);
+		List<Point> points = new ArrayList<Point>(n);
+
+		switch(distribution) {
+		case UNIFORM:
+			for(int i=0;i<n;i++)
+				points.add(new Point(random.nextDouble()*SIZE, random.nextDouble()*SIZE));
+			break;
+
+		case CLUSTERED:
+			int clusters = Math.max(1, (int)Math.sqrt(n)/10);
+			double[] centers = new double[2*clusters];
+			for(int i=0;i<centers.length;i++) centers[i] = SIZE/10 + random.nextDouble()*SIZE*0.8;
+			for(int i=0;i<n;i++) {
+				int c = random.nextInt(clusters);
+				double x = centers[2*c] + random.nextGaussian()*SIZE/100;
+				double y = centers[2*c+1] + random.nextGaussian()*SIZE/100;
+				points.add(new Point(clamp(x), clamp(y)));
+			}
+			break;
+
+		case GRID:
+			int side = (int)Math.ceil(Math.sqrt(n));
+			double step = SIZE/side;
+			for(int i=0;i<n;i++)
+				points.add(new Point((i%side)*step, (i/side)*step));
+			break;
+
+		case COCIRCULAR:
+			for(int i=0;i<n;i++) {
+				double angle = 2*Math.PI*i/n;
+				points.add(new Point(SIZE/2 + SIZE*0.4*Math.cos(angle), SIZE/2 + SIZE*0.4*Math.sin(angle)));
+			}
+			break;
+		}
+		return points;
+	}
+
+	public static Triangle initialTriangle() {
+		return new Triangle(
+			new Point(-INITIAL_SIZE,-INITIAL_SIZE),
+			new Point(INITIAL_SIZE,-INITIAL_SIZE),
+			new Point(0,INITIAL_SIZE)
+		);
+	}
+
+	public static Triangulation build(List<Point> points) {
+		Triangulation dt = new Triangulation(initialTriangle());
+		dt.delaunayPlaceAll(points);
+		return dt;
+	}
+
+	private static double clamp(double value) {
+		return Math.max(0, Math.min(SIZE - 1e-9, value));
+	}
+
+}
@@ -0,0 +1,69 @@
+package Voronoi.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.DivideAndConquer;
+import Voronoi.Point;
+import Voronoi.Triangulation;
+
+/**
+ * Building a whole triangulation, one point at a time in input order
+ * and in bulk, incrementally or by divide and conquer
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InsertBench {
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int n;
+
+	private List<Point> points;
+
+	@Setup
+	public void setup() {
+		points = Inputs.generate(distribution, n, 42);
+	}
+
+	@Benchmark
+	public Triangulation delaunayPlace() {
+		Triangulation dt = new Triangulation(Inputs.initialTriangle());
+		for(Point p : points) dt.delaunayPlace(p);
+		return dt;
+	}
+
+	@Benchmark
+	public Triangulation delaunayPlaceAll() {
+		Triangulation dt = new Triangulation(Inputs.initialTriangle());
+		dt.delaunayPlaceAll(points);
+		return dt;
+	}
+
+	@Benchmark
+	public Triangulation divideAndConquer() {
+		return DivideAndConquer.build(Inputs.initialTriangle(), points);
+	}
+
+}
@@ -0,0 +1,98 @@
+package Voronoi.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.Point;
+import Voronoi.Triangulation;
+
+/**
+ * Bowyer-Watson against Lawson insertion, in random order, in bulk and
+ * in the nearly sorted order a sweeping sensor gives
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InsertionBench {
+
+	@Param({"BOWYER_WATSON", "LAWSON"})
+	public Triangulation.Insertion insertion;
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000"})
+	public int n;
+
+	private List<Point> points;
+	private List<Point> sorted;
+
+	@Setup
+	public void setup() {
+		points = Inputs.generate(distribution, n, 42);
+
+		//sorted by x give or take a hundredth of the width
+		final Random random = new Random(3);
+		final double[] key = new double[n];
+		List<Integer> order = new ArrayList<Integer>(n);
+		for(int i=0;i<n;i++) {
+			key[i] = points.get(i).coord(0) + random.nextDouble()*Inputs.SIZE/100;
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(key[a], key[b]);
+			}
+		});
+		sorted = new ArrayList<Point>(n);
+		for(int i : order) sorted.add(points.get(i));
+	}
+
+	@Benchmark
+	public Triangulation delaunayPlace() {
+		return place(points);
+	}
+
+	@Benchmark
+	public Triangulation delaunayPlaceAll() {
+		Triangulation dt = new Triangulation(Inputs.initialTriangle());
+		dt.setInsertion(insertion);
+		dt.delaunayPlaceAll(points);
+		return dt;
+	}
+
+	@Benchmark
+	public Triangulation nearlySorted() {
+		return place(sorted);
+	}
+
+	private Triangulation place(List<Point> list) {
+		Triangulation dt = new Triangulation(Inputs.initialTriangle());
+		dt.setInsertion(insertion);
+		for(Point p : list) dt.delaunayPlace(p);
+		return dt;
+	}
+
+}
@@ -0,0 +1,65 @@
+package Voronoi.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.Point;
+import Voronoi.Triangulation;
+
+/**
+ * Building over points snapped to integers, with double predicates and
+ * with the exact long ones of integer coordinates
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IntegerBench {
+
+	private static final double SNAP = 1000;	// integer steps per unit of the inputs
+
+	@Param({"DOUBLE", "INTEGER"})
+	public Triangulation.Coordinates coordinates;
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000"})
+	public int n;
+
+	private List<Point> points;
+
+	@Setup
+	public void setup() {
+		points = new ArrayList<Point>(n);
+		for(Point p : Inputs.generate(distribution, n, 42))
+			points.add(new Point(Math.rint(p.coord(0)*SNAP), Math.rint(p.coord(1)*SNAP)));
+	}
+
+	@Benchmark
+	public Triangulation delaunayPlaceAll() {
+		Triangulation dt = new Triangulation(Inputs.initialTriangle());
+		dt.setCoordinates(coordinates);
+		dt.delaunayPlaceAll(points);
+		return dt;
+	}
+
+}
@@ -0,0 +1,101 @@
+package Voronoi.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.Point;
+
+/**
+ * Cost of a single geometric predicate, generic versus 2D specialized
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateBench {
+
+	private static final int COUNT = 1024;
+
+	private Point[][] triangles = new Point[COUNT][];
+	private Point[][] matrices = new Point[COUNT][];
+	private Point[] queries = new Point[COUNT];
+	private double[] coords = new double[8*COUNT];
+	private int i = 0;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for(int k=0;k<COUNT;k++) {
+			triangles[k] = new Point[3];
+			for(int j=0;j<3;j++) triangles[k][j] = random2D(random);
+			queries[k] = random2D(random);
+
+			matrices[k] = new Point[4];
+			for(int j=0;j<4;j++) matrices[k][j] = new Point(random.nextDouble(), random.nextDouble(),
+					random.nextDouble(), random.nextDouble());
+
+			for(int j=0;j<3;j++) {
+				coords[8*k+2*j] = triangles[k][j].coord(0);
+				coords[8*k+2*j+1] = triangles[k][j].coord(1);
+			}
+			coords[8*k+6] = queries[k].coord(0);
+			coords[8*k+7] = queries[k].coord(1);
+		}
+	}
+
+	@Benchmark
+	public double determinant() {
+		return Point.determinant(matrices[next()]);
+	}
+
+	@Benchmark
+	public int circumcircle() {
+		int k = next();
+		return queries[k].circumcircle(triangles[k]);
+	}
+
+	@Benchmark
+	public int[] relation() {
+		int k = next();
+		return queries[k].relation(triangles[k]);
+	}
+
+	@Benchmark
+	public double orient2d() {
+		int k = 8*next();
+		double[] c = coords;
+		return Point.orient2d(c[k], c[k+1], c[k+2], c[k+3], c[k+4], c[k+5]);
+	}
+
+	@Benchmark
+	public double incircle() {
+		int k = 8*next();
+		double[] c = coords;
+		return Point.incircle(c[k], c[k+1], c[k+2], c[k+3], c[k+4], c[k+5], c[k+6], c[k+7]);
+	}
+
+	private int next() {
+		return i = (i+1) & (COUNT-1);
+	}
+
+	private static Point random2D(Random random) {
+		return new Point(random.nextDouble()*Inputs.SIZE, random.nextDouble()*Inputs.SIZE);
+	}
+
+}
@@ -0,0 +1,69 @@
+package Voronoi.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.SiteGraph;
+import Voronoi.Triangulation;
+
+/**
+ * Minimum spanning tree, Gabriel and relative neighbourhood graphs taken
+ * from a triangulation, against exporting its Delaunay graph alone
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ProximityBench {
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000"})
+	public int n;
+
+	private Triangulation dt;
+
+	@Setup
+	public void setup() {
+		dt = new Triangulation(Inputs.initialTriangle());
+		dt.delaunayPlaceAll(Inputs.generate(distribution, n, 42));
+	}
+
+	@Benchmark
+	public SiteGraph siteGraph() {
+		return new SiteGraph(dt, true);
+	}
+
+	@Benchmark
+	public SiteGraph euclideanMST() {
+		return dt.euclideanMST();
+	}
+
+	@Benchmark
+	public SiteGraph gabrielGraph() {
+		return dt.gabrielGraph();
+	}
+
+	@Benchmark
+	public SiteGraph relativeNeighborhoodGraph() {
+		return dt.relativeNeighborhoodGraph();
+	}
+
+}
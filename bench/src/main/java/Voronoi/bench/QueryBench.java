@@ -0,0 +1,124 @@
+package Voronoi.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.Point;
+import Voronoi.Triangle;
+import Voronoi.Triangulation;
+
+/**
+ * Queries against a triangulation built once per trial
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class QueryBench {
+
+	private static final int COUNT = 4096;
+	private static final int BATCH = 1 << 20;
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000", "10000000"})
+	public int n;
+
+	private Triangulation dt;
+	private Point[] queries = new Point[COUNT];
+	private Point[] vertices = new Point[COUNT];
+	private Triangle[] incident = new Triangle[COUNT];
+	private double[] xs = new double[BATCH], ys = new double[BATCH];
+	private int[] nearest = new int[BATCH];
+	private int i = 0;
+
+	@Setup
+	public void setup() {
+		List<Point> points = Inputs.generate(distribution, n, 42);
+		dt = Inputs.build(points);
+
+		Random random = new Random(7);
+		for(int k=0;k<COUNT;k++)
+			queries[k] = new Point(random.nextDouble()*Inputs.SIZE, random.nextDouble()*Inputs.SIZE);
+
+		for(int k=0;k<BATCH;k++) {
+			xs[k] = random.nextDouble()*Inputs.SIZE;
+			ys[k] = random.nextDouble()*Inputs.SIZE;
+		}
+
+		Triangle initial = Inputs.initialTriangle();
+		List<Triangle> triangles = new ArrayList<Triangle>(dt);
+		for(int k=0;k<COUNT;) {
+			Triangle t = triangles.get(random.nextInt(triangles.size()));
+			Point p = t.get(random.nextInt(3));
+			if(initial.contains(p)) continue;
+			vertices[k] = p;
+			incident[k++] = t;
+		}
+	}
+
+	@Benchmark
+	public Triangle locate() {
+		return dt.locate(queries[next()]);
+	}
+
+	@Benchmark
+	public Point nearestSite() {
+		return dt.nearestSite(queries[next()]);
+	}
+
+	/**
+	 * Time per query of a batch of random queries
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] nearestSites() {
+		dt.nearestSites(xs, ys, nearest);
+		return nearest;
+	}
+
+	@Benchmark
+	public List<Triangle> surroundingTriangles() {
+		int k = next();
+		return dt.surroundingTriangles(vertices[k], incident[k]);
+	}
+
+	/**
+	 * The Voronoi cell of a site, as VoronoiPanel extracts it
+	 */
+	@Benchmark
+	public Point[] voronoiCell() {
+		int k = next();
+		List<Triangle> fan = dt.surroundingTriangles(vertices[k], incident[k]);
+		Point[] cell = new Point[fan.size()];
+		int j = 0;
+		for(Triangle t : fan) cell[j++] = t.getCircumcenter();
+		return cell;
+	}
+
+	private int next() {
+		return i = (i+1) & (COUNT-1);
+	}
+
+}
@@ -0,0 +1,87 @@
+package Voronoi.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Voronoi.Graph;
+import Voronoi.Point;
+import Voronoi.SiteGraph;
+import Voronoi.Triangle;
+import Voronoi.Triangulation;
+
+/**
+ * Exporting the site adjacency of a triangulation as compressed sparse
+ * rows, on the common pool and on one thread, against a boxed Graph
+ *
+ * @author sohit
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SiteGraphBench {
+
+	@Param({"UNIFORM", "CLUSTERED", "GRID", "COCIRCULAR"})
+	public Inputs.Distribution distribution;
+
+	@Param({"1000", "100000", "1000000"})
+	public int n;
+
+	private Triangulation dt;
+	private Triangle initial;
+	private ForkJoinPool single;
+
+	@Setup
+	public void setup() {
+		initial = Inputs.initialTriangle();
+		dt = new Triangulation(initial);
+		dt.delaunayPlaceAll(Inputs.generate(distribution, n, 42));
+		single = new ForkJoinPool(1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		single.shutdown();
+	}
+
+	@Benchmark
+	public SiteGraph siteGraph() {
+		return new SiteGraph(dt, true);
+	}
+
+	@Benchmark
+	public SiteGraph siteGraphOneThread() {
+		return new SiteGraph(dt, true, single);
+	}
+
+	@Benchmark
+	public Graph<Point> boxedGraph() {
+		Graph<Point> graph = new Graph<Point>();
+		for(Triangle t : dt)
+			for(int i=0;i<3;i++) {
+				Point a = t.get(i), b = t.get((i+1)%3);
+				if(initial.contains(a) || initial.contains(b)) continue;
+				graph.add(a);
+				graph.add(b);
+				graph.add(a, b);
+			}
+		return graph;
+	}
+
+}
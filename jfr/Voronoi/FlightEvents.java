@@ -0,0 +1,107 @@
+package Voronoi;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events sent by {@link Metrics}. Only loaded once Metrics has found
+ * a Flight Recorder, so the rest runs on JVMs without one. It is built
+ * for Java 11 apart from the Java 8 sources, by the jfr profile of the
+ * core module, and left out of the jar on older JDKs.
+ *
+ * @author sohit
+ *
+ */
+final class FlightEvents implements Metrics.Recorder {
+
+	FlightEvents() {}
+
+	@Name("Voronoi.Insert")
+	@Label("Site Insertion")
+	@Category("Voronoi")
+	@StackTrace(false)
+	static class Insert extends Event {
+		@Label("Time") @Timespan(Timespan.NANOSECONDS)
+		long time;
+		@Label("Cavity Size")
+		int cavity;
+	}
+
+	@Name("Voronoi.Paint")
+	@Label("Panel Repaint")
+	@Category("Voronoi")
+	@StackTrace(false)
+	static class Paint extends Event {
+		@Label("Time") @Timespan(Timespan.NANOSECONDS)
+		long time;
+	}
+
+	@Name("Voronoi.Statistics")
+	@Label("Engine Statistics")
+	@Category("Voronoi")
+	@Period("1 s")
+	@StackTrace(false)
+	static class Statistics extends Event {
+		@Label("Insertions")
+		long inserts;
+		@Label("Walks")
+		long walks;
+		@Label("Full Scans")
+		long fullScans;
+		@Label("Orientation Tests")
+		long orients;
+		@Label("Incircle Tests")
+		long incircles;
+		@Label("Exact Predicates")
+		long exact;
+		@Label("Frames")
+		long frames;
+		@Label("Used Heap") @DataAmount
+		long heap;
+	}
+
+	@Override
+	public void register() {
+		FlightRecorder.addPeriodicEvent(Statistics.class, new Runnable() {
+			public void run() {
+				Metrics m = Metrics.get();
+				Statistics e = new Statistics();
+				e.inserts = m.getInserts();
+				e.walks = m.getWalks();
+				e.fullScans = m.getFullScans();
+				e.orients = m.getOrientCalls();
+				e.incircles = m.getIncircleCalls();
+				e.exact = m.getExactPredicates();
+				e.frames = m.getFrames();
+				Runtime runtime = Runtime.getRuntime();
+				e.heap = runtime.totalMemory()-runtime.freeMemory();
+				e.commit();
+			}
+		});
+	}
+
+	@Override
+	public void insert(long nanos, int cavity) {
+		Insert e = new Insert();
+		if(!e.isEnabled()) return;
+		e.time = nanos;
+		e.cavity = cavity;
+		e.commit();
+	}
+
+	@Override
+	public void paint(long nanos) {
+		Paint e = new Paint();
+		if(!e.isEnabled()) return;
+		e.time = nanos;
+		e.commit();
+	}
+
+}
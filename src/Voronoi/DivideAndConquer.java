@@ -0,0 +1,530 @@
+package Voronoi;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel divide and conquer Delaunay construction (Guibas and Stolfi).
+ *
+ * The points, together with the vertices of the initial triangle, are
+ * split recursively at the median, alternately in x and in y. The halves
+ * are triangulated as independent tasks on a ForkJoinPool and merged by
+ * zipping their convex hulls together. Edges live in an index based quad-edge
+ * structure; each task owns the slots of its own range so tasks never
+ * share memory. The result is converted into the Mesh of an ordinary
+ * Triangulation, which can be inserted into afterwards. As there, sites
+ * outside the initial triangle grow it.
+ *
+ * @author sohit
+ *
+ */
+public class DivideAndConquer {
+
+	private static final int NONE = Mesh.NONE;
+	private static final int SEQUENTIAL = 1 << 13;	// subproblems below this are not forked
+
+	private final Mesh mesh;
+	private final int[] order;		// vertices, partitioned in place as the recursion goes
+	private final int[] onext;		// quarter edge q = 4e+r, r the rotation
+	private final int[] org;		// origin of the primal quarter edges, at q>>1
+	private final ForkJoinPool pool;
+
+	private DivideAndConquer(Mesh mesh, int[] order, ForkJoinPool pool) {
+		this.mesh = mesh;
+		this.order = order;
+		this.pool = pool;
+		int edges = 3*order.length;
+		onext = new int[4*edges];
+		org = new int[2*edges];
+		pool.invoke(new Range(0, onext.length, q -> onext[q] = NONE));
+	}
+
+	public static Triangulation build(Triangle initial, Collection<? extends Point> points) {
+		return build(initial, points, ForkJoinPool.commonPool());
+	}
+
+	public static Triangulation build(Triangle initial, Collection<? extends Point> points, ForkJoinPool pool) {
+
+		final Point[] sites = points.toArray(new Point[0]);
+		Point[] corners = initial.toArray(new Point[0]);
+		for(Point p : corners) checkDimension(p);
+		double x0 = Double.POSITIVE_INFINITY, y0 = x0, x1 = -x0, y1 = -x0;
+		for(Point p : sites) {
+			checkDimension(p);
+			Triangulation.checkFinite(p.coord(0), p.coord(1));
+			x0 = Math.min(x0, p.coord(0));
+			y0 = Math.min(y0, p.coord(1));
+			x1 = Math.max(x1, p.coord(0));
+			y1 = Math.max(y1, p.coord(1));
+		}
+
+		//grow the initial triangle the way Triangulation does if it is too small
+		double[] xy = new double[6];
+		for(int i=0;i<3;i++) {
+			xy[2*i] = corners[i].coord(0);
+			xy[2*i+1] = corners[i].coord(1);
+		}
+		if(sites.length > 0 && !Triangulation.holds(xy, x0, y0, x1, y1)) {
+			xy = Triangulation.grown(xy, false, x0, y0, x1, y1);
+			corners = new Point[3];
+			for(int i=0;i<3;i++) corners[i] = new Point(xy[2*i], xy[2*i+1]);
+		}
+
+		Mesh mesh = new Mesh(sites.length+3);
+		for(Point p : corners) mesh.addVertex(p.coord(0), p.coord(1), p);
+
+		//+0.0 turns -0.0 into 0.0, which equals it, so duplicates end up side by side
+		final Comparator<Point> byXY = new Comparator<Point>() {
+			public int compare(Point p, Point q) {
+				int c = Double.compare(p.coord(0)+0.0, q.coord(0)+0.0);
+				return c != 0 ? c : Double.compare(p.coord(1)+0.0, q.coord(1)+0.0);
+			}
+		};
+		Arrays.parallelSort(sites, byXY);
+
+		//corners are vertices 0..2, merge them into the sorted sites
+		Integer[] byCorner = {0, 1, 2};
+		final Point[] cornerPoints = corners;
+		Arrays.sort(byCorner, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return byXY.compare(cornerPoints[a], cornerPoints[b]);
+			}
+		});
+
+		int[] order = new int[sites.length+3];
+		int n = 0, k = 0;
+		for(int i=0;i<=sites.length;i++) {
+			Point p = i < sites.length ? sites[i] : null;
+			while(k < 3 && (p == null || byXY.compare(corners[byCorner[k]], p) <= 0)) {
+				if(p != null && byXY.compare(corners[byCorner[k]], p) == 0) p = null;
+				order[n++] = byCorner[k++];
+			}
+			if(p == null || (i > 0 && byXY.compare(p, sites[i-1]) == 0)) continue;
+			order[n++] = mesh.addVertex(p.coord(0), p.coord(1), p);
+		}
+
+		DivideAndConquer dc = new DivideAndConquer(mesh, Arrays.copyOf(order, n), pool);
+		pool.invoke(dc.new Solve(0, n, 0));
+		dc.toMesh();
+
+		return new Triangulation(initial, mesh);
+	}
+
+	/**
+	 * Triangulates order[lo,hi) and returns its hull edges in the frame of
+	 * axis: the counter-clockwise one leaving the lowest vertex and the
+	 * clockwise one leaving the highest
+	 */
+	private class Solve extends RecursiveTask<Hull> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo, hi, axis;
+
+		Solve(int lo, int hi, int axis) {
+			this.lo = lo;
+			this.hi = hi;
+			this.axis = axis;
+		}
+
+		@Override
+		protected Hull compute() {
+			if(hi-lo <= SEQUENTIAL) {
+				Edges edges = new Edges(3*lo, 3*hi);
+				return triangulate(lo, hi, axis, edges);
+			}
+			int mid = (lo+hi) >>> 1;
+			select(lo, hi, mid, axis);
+			Solve left = new Solve(lo, mid, 1-axis);
+			left.fork();
+			Hull right = new Solve(mid, hi, 1-axis).compute();
+			Hull l = left.join();
+
+			Edges edges = new Edges(l.edges, right.edges);
+			return merge(reframe(l, axis), reframe(right, axis), edges);
+		}
+	}
+
+	/**
+	 * Cuts alternate between vertical (axis 0) and horizontal (axis 1),
+	 * which keeps the subproblems square and the merges short (Dwyer)
+	 */
+	private Hull triangulate(int lo, int hi, int axis, Edges edges) {
+
+		int n = hi-lo;
+		if(n <= 3) {
+			for(int i=lo+1;i<hi;i++)
+				for(int j=i;j>lo && less(order[j], order[j-1], axis);j--) {
+					int tmp = order[j];
+					order[j] = order[j-1];
+					order[j-1] = tmp;
+				}
+		}
+		if(n == 2) {
+			int a = makeEdge(edges, order[lo], order[lo+1]);
+			return new Hull(a, sym(a), edges);
+		}
+		if(n == 3) {
+			int s1 = order[lo], s2 = order[lo+1], s3 = order[lo+2];
+			int a = makeEdge(edges, s1, s2);
+			int b = makeEdge(edges, s2, s3);
+			splice(sym(a), b);
+			int o = orient(s1, s2, s3);
+			if(o > 0) {
+				connect(b, a, edges);
+				return new Hull(a, sym(b), edges);
+			}
+			if(o < 0) {
+				int c = connect(b, a, edges);
+				return new Hull(sym(c), c, edges);
+			}
+			return new Hull(a, sym(b), edges);
+		}
+
+		int mid = (lo+hi) >>> 1;
+		select(lo, hi, mid, axis);
+		Hull l = reframe(triangulate(lo, mid, 1-axis, edges), axis);
+		Hull r = reframe(triangulate(mid, hi, 1-axis, edges), axis);
+		return merge(l, r, edges);
+	}
+
+	/**
+	 * Finds the extreme hull edges of h in the frame of axis by walking
+	 * around its hull, the outer face kept on the left
+	 */
+	private Hull reframe(Hull h, int axis) {
+		int start = sym(h.left);
+		int prev = start, e = lnext(start);
+		int low = e, lowPrev = prev, high = e;
+		do {
+			if(less(org(e), org(low), axis)) {
+				low = e;
+				lowPrev = prev;
+			}
+			if(less(org(high), org(e), axis)) high = e;
+			prev = e;
+			e = lnext(e);
+		} while(prev != start);
+		return new Hull(sym(lowPrev), high, h.edges);
+	}
+
+	/**
+	 * Partially sorts order[lo,hi) so that order[k] is in place
+	 * with smaller vertices before it and larger after
+	 */
+	private void select(int lo, int hi, int k, int axis) {
+		hi--;
+		while(hi > lo) {
+			int pivot = order[(lo+hi) >>> 1];
+			int i = lo, j = hi;
+			while(i <= j) {
+				while(less(order[i], pivot, axis)) i++;
+				while(less(pivot, order[j], axis)) j--;
+				if(i <= j) {
+					int tmp = order[i];
+					order[i++] = order[j];
+					order[j--] = tmp;
+				}
+			}
+			if(k <= j) hi = j;
+			else if(k >= i) lo = i;
+			else return;
+		}
+	}
+
+	/**
+	 * Lexicographic order along axis: (x,y) for 0, (y,-x) for 1, the
+	 * plane turned a quarter so orientations are unchanged
+	 */
+	private boolean less(int u, int v, int axis) {
+		double[] xy = mesh.xy;
+		double u0 = xy[2*u+axis], v0 = xy[2*v+axis];
+		if(u0 != v0) return u0 < v0;
+		return axis == 0 ? xy[2*u+1] < xy[2*v+1] : xy[2*u] > xy[2*v];
+	}
+
+	private Hull merge(Hull l, Hull r, Edges edges) {
+
+		int ldo = l.left, ldi = l.right;
+		int rdi = r.left, rdo = r.right;
+
+		//lower common tangent of the two hulls
+		while(true) {
+			if(leftOf(org(rdi), ldi)) ldi = lnext(ldi);
+			else if(rightOf(org(ldi), rdi)) rdi = rprev(rdi);
+			else break;
+		}
+
+		int basel = connect(sym(rdi), ldi, edges);
+		if(org(ldi) == org(ldo)) ldo = sym(basel);
+		if(org(rdi) == org(rdo)) rdo = basel;
+
+		//zip upwards, deleting edges that fail the empty circle test
+		while(true) {
+			int lcand = onext[sym(basel)];
+			if(valid(lcand, basel)) {
+				while(inCircle(dest(basel), org(basel), dest(lcand), dest(onext[lcand]))) {
+					int t = onext[lcand];
+					deleteEdge(lcand, edges);
+					lcand = t;
+				}
+			}
+			int rcand = oprev(basel);
+			if(valid(rcand, basel)) {
+				while(inCircle(dest(basel), org(basel), dest(rcand), dest(oprev(rcand)))) {
+					int t = oprev(rcand);
+					deleteEdge(rcand, edges);
+					rcand = t;
+				}
+			}
+
+			boolean lvalid = valid(lcand, basel), rvalid = valid(rcand, basel);
+			if(!lvalid && !rvalid) break;
+
+			if(!lvalid || (rvalid && inCircle(dest(lcand), org(lcand), org(rcand), dest(rcand))))
+				basel = connect(rcand, sym(basel), edges);
+			else
+				basel = connect(sym(basel), sym(lcand), edges);
+		}
+		return new Hull(ldo, rdo, edges);
+	}
+
+	/**
+	 * Turns every triangular face into a mesh triangle, in parallel
+	 */
+	private void toMesh() {
+
+		final int primal = onext.length/2;		// primal quarter edge q = 2i
+		final int[] ids = new int[primal];		// running count of faces, each met at its smallest edge
+		final int[] face = new int[primal];		// triangle left of each primal quarter edge
+
+		pool.invoke(new Range(0, primal, i -> {
+			ids[i] = isFaceStart(2*i) ? 1 : 0;
+			face[i] = NONE;
+		}));
+		Arrays.parallelPrefix(ids, Integer::sum);
+		mesh.allocateTriangles(primal == 0 ? 0 : ids[primal-1]);
+
+		pool.invoke(new Range(0, primal, i -> {
+			if(ids[i] == (i == 0 ? 0 : ids[i-1])) return;
+			int t = ids[i]-1;
+			int q = 2*i, q1 = lnext(q), q2 = lnext(q1);
+			mesh.tv[3*t] = org(q);
+			mesh.tv[3*t+1] = org(q1);
+			mesh.tv[3*t+2] = org(q2);
+			//racy but any triangle around a vertex will do
+			mesh.vertexTri[org(q)] = mesh.vertexTri[org(q1)] = mesh.vertexTri[org(q2)] = t;
+			face[q>>1] = face[q1>>1] = face[q2>>1] = t;
+		}));
+
+		//the edge from tv[0] to tv[1] lies opposite tv[2]
+		pool.invoke(new Range(0, primal, i -> {
+			if(ids[i] == (i == 0 ? 0 : ids[i-1])) return;
+			int t = ids[i]-1;
+			int q = 2*i, q1 = lnext(q), q2 = lnext(q1);
+			mesh.tn[3*t+2] = face[sym(q)>>1];
+			mesh.tn[3*t] = face[sym(q1)>>1];
+			mesh.tn[3*t+1] = face[sym(q2)>>1];
+		}));
+	}
+
+	/**
+	 * q is the smallest quarter edge of a counter-clockwise triangle on its left
+	 */
+	private boolean isFaceStart(int q) {
+		if(onext[q] == NONE) return false;
+		int q1 = lnext(q), q2 = lnext(q1);
+		return lnext(q2) == q && q < q1 && q < q2 && orient(org(q), org(q1), org(q2)) > 0;
+	}
+
+	//quad-edge algebra
+
+	private static int rot(int q) {
+		return (q & ~3) | ((q+1) & 3);
+	}
+
+	private static int rotInv(int q) {
+		return (q & ~3) | ((q+3) & 3);
+	}
+
+	private static int sym(int q) {
+		return q ^ 2;
+	}
+
+	private int oprev(int q) {
+		return rot(onext[rot(q)]);
+	}
+
+	private int lnext(int q) {
+		return rot(onext[rotInv(q)]);
+	}
+
+	private int rprev(int q) {
+		return onext[sym(q)];
+	}
+
+	private int org(int q) {
+		return org[q>>1];
+	}
+
+	private int dest(int q) {
+		return org[sym(q)>>1];
+	}
+
+	private int makeEdge(Edges edges, int from, int to) {
+		int q = 4*edges.alloc();
+		onext[q] = q;
+		onext[q+1] = q+3;
+		onext[q+2] = q+2;
+		onext[q+3] = q+1;
+		org[q>>1] = from;
+		org[(q+2)>>1] = to;
+		return q;
+	}
+
+	private void splice(int a, int b) {
+		int alpha = rot(onext[a]);
+		int beta = rot(onext[b]);
+		int t = onext[a];
+		onext[a] = onext[b];
+		onext[b] = t;
+		t = onext[alpha];
+		onext[alpha] = onext[beta];
+		onext[beta] = t;
+	}
+
+	private int connect(int a, int b, Edges edges) {
+		int e = makeEdge(edges, dest(a), org(b));
+		splice(e, lnext(a));
+		splice(sym(e), b);
+		return e;
+	}
+
+	private void deleteEdge(int e, Edges edges) {
+		splice(e, oprev(e));
+		splice(sym(e), oprev(sym(e)));
+		for(int r=0;r<4;r++) onext[(e & ~3)+r] = NONE;
+		edges.release(e >> 2);
+	}
+
+	//predicates
+
+	private int orient(int a, int b, int c) {
+		return mesh.orient(a, b, c);
+	}
+
+	private boolean leftOf(int v, int q) {
+		return orient(v, org(q), dest(q)) > 0;
+	}
+
+	private boolean rightOf(int v, int q) {
+		return orient(v, dest(q), org(q)) > 0;
+	}
+
+	private boolean valid(int q, int basel) {
+		return rightOf(dest(q), basel);
+	}
+
+	private boolean inCircle(int a, int b, int c, int d) {
+		// d closes the fan at the end of a zip, it is on the circle
+		if(d == a || d == b || d == c) return false;
+		return mesh.inCircle(a, b, c, mesh.x(d), mesh.y(d)) > 0;
+	}
+
+	/**
+	 * Edge slots owned by one task: a range handed out in order, the edges
+	 * deleted so far, and the leftovers of the two subtasks it merges
+	 */
+	private class Edges {
+
+		private int cursor, end;
+		private int free = NONE;
+		private Edges first, second;
+
+		Edges(int begin, int end) {
+			this.cursor = begin;
+			this.end = end;
+		}
+
+		Edges(Edges first, Edges second) {
+			this(0, 0);
+			this.first = first;
+			this.second = second;
+		}
+
+		int alloc() {
+			int e = take();
+			if(e == NONE) throw new IllegalStateException("Out of edge slots");
+			return e;
+		}
+
+		void release(int e) {
+			org[2*e] = free;
+			free = e;
+		}
+
+		private int take() {
+			if(free != NONE) {
+				int e = free;
+				free = org[2*e];
+				return e;
+			}
+			if(cursor < end) {
+				int e = cursor++;
+				return e;
+			}
+			int e = first == null ? NONE : first.take();
+			if(e == NONE && second != null) e = second.take();
+			return e;
+		}
+	}
+
+	private static class Hull {
+		final int left, right;
+		final Edges edges;
+
+		Hull(int left, int right, Edges edges) {
+			this.left = left;
+			this.right = right;
+			this.edges = edges;
+		}
+	}
+
+	/**
+	 * Runs body for every i in [lo,hi), split into forked subranges
+	 */
+	private static class Range extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo, hi;
+		private final IntConsumer body;
+
+		Range(int lo, int hi, IntConsumer body) {
+			this.lo = lo;
+			this.hi = hi;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo <= SEQUENTIAL) {
+				for(int i=lo;i<hi;i++) body.accept(i);
+				return;
+			}
+			int mid = (lo+hi) >>> 1;
+			invokeAll(new Range(lo, mid, body), new Range(mid, hi, body));
+		}
+	}
+
+	private static void checkDimension(Point point) {
+		if(point.dimension() != 2)
+			throw new IllegalArgumentException("Point must be two-dimensional");
+	}
+
+}
@@ -0,0 +1,112 @@
+package Voronoi;
+
+import java.util.Arrays;
+
+/**
+ * Exact floating point expansion arithmetic after Shewchuk's
+ * "Adaptive Precision Floating-Point Arithmetic and Fast Robust
+ * Geometric Predicates".
+ *
+ * An expansion is a double[] of non-overlapping components sorted by
+ * increasing magnitude whose exact sum is the represented value.
+ * Only used on the slow path of the predicates in Point, whose result
+ * is the largest component: exact in sign, approximate in magnitude.
+ *
+ * @author sohit
+ *
+ */
+final class Expansion {
+
+	static final double EPSILON = Math.ulp(1.0)/2;
+	private static final double SPLITTER = 134217729.0; // 2^27 + 1
+
+	private Expansion() {}
+
+	/**
+	 * Exact difference a-b as a two component expansion
+	 */
+	static double[] diff(double a, double b) {
+		double x = a - b;
+		double bv = a - x;
+		double av = x + bv;
+		double br = bv - b;
+		double ar = a - av;
+		return new double[] { ar + br, x };
+	}
+
+	static double[] sum(double[] e, double[] f) {
+		double[] h = new double[e.length + f.length];
+		int i = 0, j = 0, k = 0;
+		double q = 0;
+		boolean first = true;
+
+		while(i < e.length || j < f.length) {
+			double next;
+			if(j == f.length || (i < e.length && Math.abs(e[i]) < Math.abs(f[j]))) next = e[i++];
+			else next = f[j++];
+
+			if(first) {
+				q = next;
+				first = false;
+				continue;
+			}
+			double x = q + next;
+			double bv = x - q;
+			double av = x - bv;
+			double tail = (q - av) + (next - bv);
+			if(tail != 0) h[k++] = tail;
+			q = x;
+		}
+		if(q != 0 || k == 0) h[k++] = q;
+		return Arrays.copyOf(h, k);
+	}
+
+	static double[] negate(double[] e) {
+		double[] h = new double[e.length];
+		for(int i=0;i<e.length;i++) h[i] = -e[i];
+		return h;
+	}
+
+	static double[] scale(double[] e, double b) {
+		double[] h = new double[2*e.length];
+		int k = 0;
+
+		double q = e[0] * b;
+		double tail = productTail(e[0], b, q);
+		if(tail != 0) h[k++] = tail;
+
+		for(int i=1;i<e.length;i++) {
+			double p1 = e[i] * b;
+			double p0 = productTail(e[i], b, p1);
+
+			double sum = q + p0;
+			double bv = sum - q;
+			tail = (q - (sum - bv)) + (p0 - bv);
+			if(tail != 0) h[k++] = tail;
+
+			q = p1 + sum;
+			tail = sum - (q - p1);
+			if(tail != 0) h[k++] = tail;
+		}
+		if(q != 0 || k == 0) h[k++] = q;
+		return Arrays.copyOf(h, k);
+	}
+
+	static double[] multiply(double[] e, double[] f) {
+		double[] h = scale(e, f[0]);
+		for(int i=1;i<f.length;i++) h = sum(h, scale(e, f[i]));
+		return h;
+	}
+
+	private static double productTail(double a, double b, double x) {
+		double c = SPLITTER * a;
+		double ahi = c - (c - a);
+		double alo = a - ahi;
+		c = SPLITTER * b;
+		double bhi = c - (c - b);
+		double blo = b - bhi;
+		double err = x - (ahi * bhi) - (alo * bhi) - (ahi * blo);
+		return (alo * blo) - err;
+	}
+
+}
@@ -0,0 +1,279 @@
+package Voronoi;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Delaunay hierarchy (Devillers) for point location over a Mesh.
+ *
+ * Level 0 is the full mesh. Every vertex of level k is also inserted in
+ * level k+1 with probability 1/RATIO, so the top levels are tiny. A point
+ * is located by walking the top level, stepping down through the nearest
+ * vertex of the triangle found and walking again, which takes an expected
+ * O(log n) steps wherever the previous insertion was.
+ *
+ * @author sohit
+ *
+ */
+public class Hierarchy {
+
+	public static final int RATIO = 30;
+	public static final int MAX_LEVELS = 5;
+
+	private Mesh[] levels = new Mesh[MAX_LEVELS];
+	private int[][] down = new int[MAX_LEVELS][];	// vertex at level k -> vertex at level k-1
+	private int[][] up = new int[MAX_LEVELS][];		// vertex at level k -> vertex at level k+1, or NONE
+	private int count = 1;
+	private int[] path = new int[MAX_LEVELS];		// triangles found by the last locate
+	private int[] lastLifted = new int[MAX_LEVELS];
+	private Random random = new Random(RATIO);
+
+	public Hierarchy(Mesh base) {
+		levels[0] = base;
+		up[0] = newLinks(base.vertexCount());
+	}
+
+	/**
+	 * Hierarchy over levels built elsewhere, down[k][u] being the vertex
+	 * of level k-1 under vertex u of level k
+	 */
+	Hierarchy(Mesh[] levels, int[][] down) {
+		count = levels.length;
+		for(int k=0;k<count;k++) {
+			this.levels[k] = levels[k];
+			this.up[k] = newLinks(levels[k].vertexCount());
+			path[k] = Mesh.NONE;
+		}
+		for(int k=1;k<count;k++) {
+			this.down[k] = down[k];
+			for(int u=0;u<levels[k].vertexCount();u++)
+				if(levels[k].triangleOf(u) != Mesh.NONE) up[k-1][down[k][u]] = u;
+		}
+	}
+
+	public Mesh level(int k) {
+		return levels[k];
+	}
+
+	/**
+	 * Vertex of level k-1 under vertex u of level k
+	 */
+	int down(int k, int u) {
+		return down[k][u];
+	}
+
+	public int levels() {
+		return count;
+	}
+
+	/**
+	 * Triangle of the base mesh holding (x,y), or NONE if outside
+	 */
+	public int locate(double x, double y) {
+
+		int start = levels[count-1].triangleOf(0);
+
+		for(int k=count-1;k>=0;k--) {
+			Mesh mesh = levels[k];
+			int t = mesh.locate(x, y, start);
+			path[k] = t;
+			if(t == Mesh.NONE) return Mesh.NONE;
+			if(k == 0) return t;
+
+			int v = down[k][nearestVertex(mesh, t, x, y)];
+			start = levels[k-1].triangleOf(v);
+		}
+		return Mesh.NONE;
+	}
+
+	/**
+	 * Vertex of the base mesh nearest to (x,y), found by a greedy walk on
+	 * each level from the vertex under the one found above. Unlike locate
+	 * it keeps no state, so it may run on several threads at once.
+	 */
+	public int nearest(double x, double y) {
+		int v = 0;
+		for(int k=count-1;k>0;k--) v = down[k][levels[k].nearestVertex(x, y, v)];
+		return levels[0].nearestVertex(x, y, v);
+	}
+
+	/**
+	 * Walks the base mesh only, starting from triangle hint. Cheaper than
+	 * locate when the hint is known to be close to (x,y).
+	 */
+	public int walk(double x, double y, int hint) {
+		for(int k=1;k<count;k++) path[k] = Mesh.NONE;
+		return path[0] = levels[0].locate(x, y, hint);
+	}
+
+	/**
+	 * Copies vertex v, just placed in the base mesh at the last located
+	 * point, into a random number of upper levels
+	 */
+	public void lift(int v) {
+
+		Mesh base = levels[0];
+		double x = base.x(v), y = base.y(v);
+
+		int below = v;
+		for(int k=1;k<MAX_LEVELS && random.nextInt(RATIO) == 0;k++) {
+			if(k == count) addLevel();
+			Mesh mesh = levels[k];
+
+			int t = path[k];
+			if(t == Mesh.NONE || !mesh.isLive(t) || !mesh.contains(t, x, y))
+				t = mesh.locate(x, y, mesh.triangleOf(lastLifted[k]));
+
+			int u = mesh.insert(x, y, base.points[v], t);
+			lastLifted[k] = u;
+			link(k, u, below);
+			below = u;
+		}
+	}
+
+	/**
+	 * Rebuilds the upper levels from scratch by sampling the base mesh
+	 */
+	public void rebuild() {
+
+		for(int k=1;k<count;k++) levels[k] = null;
+		count = 1;
+		path[0] = Mesh.NONE;
+		lastLifted[0] = 0;
+
+		Mesh base = levels[0];
+		up[0] = newLinks(base.vertexCount());
+		int[] below = new int[base.vertexCount()];
+		int n = 0;
+		for(int v=3;v<base.vertexCount();v++)
+			if(base.triangleOf(v) != Mesh.NONE) below[n++] = v;
+
+		for(int k=1;k<MAX_LEVELS;k++) {
+			int m = 0;
+			for(int i=0;i<n;i++)
+				if(random.nextInt(RATIO) == 0) below[m++] = below[i];
+			if(m == 0) break;
+
+			Mesh lower = levels[k-1];
+			addLevel();
+			Mesh mesh = levels[k];
+			mesh.reserve(m+3);
+
+			double[] xy = new double[2*m];
+			for(int i=0;i<m;i++) {
+				xy[2*i] = lower.x(below[i]);
+				xy[2*i+1] = lower.y(below[i]);
+			}
+
+			int[] lifted = new int[m];
+			int t = mesh.triangleOf(0);
+			for(int i : SpatialSort.brio(xy, m, random)) {
+				t = mesh.locate(xy[2*i], xy[2*i+1], t);
+				int u = mesh.insert(xy[2*i], xy[2*i+1], lower.points[below[i]], t);
+				link(k, u, below[i]);
+				lifted[i] = u;
+				t = mesh.triangleOf(u);
+			}
+			below = lifted;
+			n = m;
+		}
+	}
+
+	/**
+	 * Removes vertex v from the base mesh and every level it was lifted to,
+	 * handing its slot on each back to the mesh and unlinking it, so a
+	 * site added later takes the same numbers
+	 */
+	public void remove(int v) {
+		for(int k=0;k<count;k++) path[k] = Mesh.NONE;
+
+		int u = v;
+		for(int k=0;k<count && u != Mesh.NONE;k++) {
+			int above = u < up[k].length ? up[k][u] : Mesh.NONE;
+			levels[k].remove(u);
+			levels[k].freeVertex(u);
+			if(u < up[k].length) up[k][u] = Mesh.NONE;
+			if(k > 0) down[k][u] = Mesh.NONE;
+			if(lastLifted[k] == u) lastLifted[k] = 0;
+			u = above;
+		}
+	}
+
+	/**
+	 * Views of every level, each linked to the one above, sharing the
+	 * pages left unchanged since previous, the base view made last time
+	 */
+	MeshView view(MeshView previous) {
+		MeshView[] old = new MeshView[count];
+		for(int k=0;k<count && previous != null;k++, previous = previous.above()) old[k] = previous;
+
+		MeshView view = null;
+		for(int k=count-1;k>=0;k--) view = new MeshView(levels[k], old[k], k == 0 ? null : down[k], view);
+		return view;
+	}
+
+	public WalkStats walkStats() {
+		long[] steps = new long[count];
+		for(int k=0;k<count;k++) steps[k] = levels[k].walkSteps.sum();
+		return new WalkStats(levels[0].walks.sum(), steps, levels[0].fullScans.sum());
+	}
+
+	public void resetWalkStats() {
+		for(int k=0;k<count;k++) {
+			levels[k].walks.reset();
+			levels[k].walkSteps.reset();
+			levels[k].fullScans.reset();
+		}
+	}
+
+	private void addLevel() {
+		Mesh base = levels[0];
+		Mesh mesh = new Mesh();
+		for(int v=0;v<3;v++) mesh.addVertex(base.x(v), base.y(v), base.points[v]);
+		mesh.addTriangle(0, 1, 2);
+		mesh.setInteger(base.isInteger());
+
+		down[count] = new int[16];
+		up[count] = newLinks(16);
+		for(int v=0;v<3;v++) down[count][v] = v;
+		path[count] = Mesh.NONE;
+		lastLifted[count] = 0;
+		levels[count++] = mesh;
+	}
+
+	/**
+	 * Links vertex u of level k with vertex below of level k-1
+	 */
+	private void link(int k, int u, int below) {
+		if(u >= down[k].length) down[k] = Arrays.copyOf(down[k], Math.max(2*down[k].length, u+1));
+		down[k][u] = below;
+		if(below >= up[k-1].length) {
+			int n = up[k-1].length;
+			up[k-1] = Arrays.copyOf(up[k-1], Math.max(2*n, below+1));
+			Arrays.fill(up[k-1], n, up[k-1].length, Mesh.NONE);
+		}
+		up[k-1][below] = u;
+	}
+
+	private static int[] newLinks(int n) {
+		int[] links = new int[Math.max(n, 16)];
+		Arrays.fill(links, Mesh.NONE);
+		return links;
+	}
+
+	private static int nearestVertex(Mesh mesh, int t, double x, double y) {
+		int best = Mesh.NONE;
+		double min = Double.POSITIVE_INFINITY;
+		for(int i=0;i<3;i++) {
+			int v = mesh.vertex(t, i);
+			double dx = mesh.x(v)-x, dy = mesh.y(v)-y;
+			double d = dx*dx + dy*dy;
+			if(d < min) {
+				min = d;
+				best = v;
+			}
+		}
+		return best;
+	}
+
+}
@@ -0,0 +1,136 @@
+package Voronoi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Places points into a Triangulation on a thread of its own, so whoever
+ * hands them over never waits for an insertion.
+ *
+ * Points queue up and are taken in batches of whatever has arrived. A
+ * batch is put in BRIO order and placed a chunk at a time, so each chunk
+ * starts next to where the last one ended.
+ *
+ * Only this thread touches the triangulation. Others read the views it
+ * publishes once shared, after every chunk, so neither side ever waits
+ * for the other.
+ *
+ * @author sohit
+ *
+ */
+public final class InsertionWorker {
+
+	private static final int BATCH = 1 << 14;			// points taken from the queue at once
+	private static final int CHUNK = 1 << 8;			// points placed together, in BRIO order
+
+	private final BlockingQueue<Point> queue = new LinkedBlockingQueue<Point>();
+	private final Thread thread;
+	private volatile Triangulation dt;
+	private volatile boolean stopped = false;
+
+	/**
+	 * Worker placing into dt, which from now on only it may change
+	 */
+	public InsertionWorker(Triangulation dt) {
+		this.dt = dt;
+		thread = new Thread(new Runnable() {
+			public void run() {
+				work();
+			}
+		}, "Voronoi insertion");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void add(Point point) {
+		queue.add(point);
+	}
+
+	public void addAll(Collection<? extends Point> points) {
+		queue.addAll(points);
+	}
+
+	/**
+	 * Points waiting to be placed
+	 */
+	public int pending() {
+		return queue.size();
+	}
+
+	/**
+	 * Drops the points not placed yet and goes on with dt, which from now
+	 * on only the worker may change. The chunk being placed still goes
+	 * into the triangulation before.
+	 */
+	public void clear(Triangulation dt) {
+		queue.clear();
+		this.dt = dt;
+	}
+
+	public void stop() {
+		stopped = true;
+		thread.interrupt();
+	}
+
+	private void work() {
+		List<Point> batch = new ArrayList<Point>();
+		while(!stopped) {
+			try {
+				batch.add(queue.take());
+			} catch(InterruptedException e) {
+				continue;
+			}
+			queue.drainTo(batch, BATCH-1);
+			if(batch.size() > CHUNK) order(batch);
+
+			Triangulation target = dt;
+			for(int done=0;done<batch.size() && dt == target;) {
+				int to = Math.min(batch.size(), done+CHUNK);
+				place(target, batch.subList(done, to));
+				done = to;
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Puts the batch in BRIO order
+	 */
+	private void order(List<Point> batch) {
+		int n = batch.size();
+		double[] xy = new double[2*n];
+		for(int i=0;i<n;i++) {
+			Point p = batch.get(i);
+			if(p.dimension() != 2) return ;
+			xy[2*i] = p.coord(0);
+			xy[2*i+1] = p.coord(1);
+			if(!(Math.abs(xy[2*i]) <= Double.MAX_VALUE && Math.abs(xy[2*i+1]) <= Double.MAX_VALUE)) return ;	//left for place to reject
+		}
+		Point[] points = batch.toArray(new Point[n]);
+		int[] order = SpatialSort.brio(xy, n, new Random(n));
+		for(int i=0;i<n;i++) batch.set(i, points[order[i]]);
+	}
+
+	/**
+	 * Places a chunk, or its points one at a time when the triangulation
+	 * rejects one of them, which is then dropped
+	 */
+	private static void place(Triangulation dt, List<Point> chunk) {
+		try {
+			dt.delaunayPlaceAll(chunk);
+		} catch(IllegalArgumentException e) {
+			for(Point p : chunk) {
+				try {
+					dt.delaunayPlace(p);
+				} catch(IllegalArgumentException rejected) {
+					continue;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+package Voronoi;
+
+/**
+ * Orientation and incircle tests on integer coordinates, exact in long
+ * arithmetic with no filter and no expansion.
+ *
+ * Coordinates may be up to LIMIT in absolute value. Then differences take
+ * 30 bits and orientation 60; incircle sums three products of 60 bit
+ * numbers, which is done in 128 bits as a high and a low long.
+ *
+ * @author sohit
+ *
+ */
+final class IntegerPredicates {
+
+	static final long LIMIT = 1L << 28;
+
+	private IntegerPredicates() {}
+
+	/**
+	 * True if value is an integer no larger than LIMIT in absolute value
+	 */
+	static boolean fits(double value) {
+		return value >= -LIMIT && value <= LIMIT && value == Math.rint(value);
+	}
+
+	/**
+	 * Sign of the orientation of a,b,c: 1 counter-clockwise, -1 clockwise
+	 * and 0 collinear
+	 */
+	static int orient(long ax, long ay, long bx, long by, long cx, long cy) {
+		if(Metrics.on) Metrics.orient();
+		return Long.signum((ax-cx)*(by-cy) - (ay-cy)*(bx-cx));
+	}
+
+	/**
+	 * Sign of incircle(a,b,c,d) as {@link Point#incircle}
+	 */
+	static int incircle(long ax, long ay, long bx, long by, long cx, long cy, long dx, long dy) {
+		if(Metrics.on) Metrics.incircle();
+
+		long adx = ax-dx, ady = ay-dy;
+		long bdx = bx-dx, bdy = by-dy;
+		long cdx = cx-dx, cdy = cy-dy;
+
+		long alift = adx*adx + ady*ady;
+		long blift = bdx*bdx + bdy*bdy;
+		long clift = cdx*cdx + cdy*cdy;
+
+		long bc = bdx*cdy - cdx*bdy;
+		long ca = cdx*ady - adx*cdy;
+		long ab = adx*bdy - bdx*ady;
+
+		//alift*bc + blift*ca + clift*ab in 128 bits
+		long lo1 = alift*bc, lo2 = blift*ca, lo3 = clift*ab;
+		long lo = lo1+lo2;
+		long hi = multiplyHigh(alift, bc) + multiplyHigh(blift, ca)
+				+ (Long.compareUnsigned(lo, lo1) < 0 ? 1 : 0);
+		long sum = lo+lo3;
+		hi += multiplyHigh(clift, ab) + (Long.compareUnsigned(sum, lo) < 0 ? 1 : 0);
+
+		if(hi != 0) return hi < 0 ? -1 : 1;
+		return sum == 0 ? 0 : 1;
+	}
+
+	/**
+	 * {@link Point#perturbedIncircle} on integers
+	 */
+	static int perturbedIncircle(long ax, long ay, long bx, long by, long cx, long cy, long dx, long dy) {
+		int sign = incircle(ax,ay,bx,by,cx,cy,dx,dy);
+		if(sign != 0) return sign;
+		if((dx == ax && dy == ay) || (dx == bx && dy == by) || (dx == cx && dy == cy)) return 0;
+
+		int done = 0;
+		for(int round=0;round<2;round++) {
+			int top = -1;
+			long tx = 0, ty = 0;
+			for(int k=0;k<4;k++) {
+				if((done & 1 << k) != 0) continue;
+				long px = k == 0 ? ax : k == 1 ? bx : k == 2 ? cx : dx;
+				long py = k == 0 ? ay : k == 1 ? by : k == 2 ? cy : dy;
+				if(top < 0 || px > tx || (px == tx && py > ty)) {
+					top = k;
+					tx = px;
+					ty = py;
+				}
+			}
+			done |= 1 << top;
+
+			int o;
+			if(top == 3) return -1;
+			else if(top == 2) o = orient(ax,ay,bx,by,dx,dy);
+			else if(top == 1) o = orient(ax,ay,dx,dy,cx,cy);
+			else o = orient(dx,dy,bx,by,cx,cy);
+			if(o != 0) return o;
+		}
+		return -1;
+	}
+
+	/**
+	 * High 64 bits of the 128 bit product x*y, as Math.multiplyHigh
+	 * does from Java 9 on
+	 */
+	static long multiplyHigh(long x, long y) {
+		long x1 = x >> 32, x2 = x & 0xFFFFFFFFL;
+		long y1 = y >> 32, y2 = y & 0xFFFFFFFFL;
+		long z2 = x2*y2;
+		long t = x1*y2 + (z2 >>> 32);
+		long z1 = (t & 0xFFFFFFFFL) + x2*y1;
+		long z0 = t >> 32;
+		return x1*y1 + z0 + (z1 >> 32);
+	}
+
+}
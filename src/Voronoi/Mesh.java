@@ -0,0 +1,1011 @@
+package Voronoi;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compact index based triangle mesh.
+ *
+ * Vertices are stored as interleaved coordinates in a double[] and triangles
+ * as three vertex slots and three neighbour slots in int[]s. Neighbour i of a
+ * triangle lies across the edge opposite its vertex i, so finding the opposite
+ * neighbour is O(1). Triangles are kept counter-clockwise.
+ *
+ * Freed triangle slots are chained into a free list and reused.
+ *
+ * @author sohit
+ *
+ */
+public class Mesh {
+
+	public static final int NONE = -1;
+
+	double[] xy;			// x of vertex v at 2v, y at 2v+1
+	Point[] points;			// Point each vertex was created from, made lazily
+	int[] vertexTri;		// some triangle incident to each vertex
+	int vertexCount = 0;
+
+	int[] tv;				// vertices of triangle t at 3t..3t+2
+	int[] tn;				// neighbour of t opposite tv[3t+i] at 3t+i
+	int triangleCount = 0;	// high water mark of triangle slots
+	private int freeList = NONE;
+	private int live = 0;
+	private int[] freeVertices = new int[0];
+	private int freeVertexCount = 0;
+
+	// pages changed since the last MeshView, a bit each
+	long[] vertexPages = new long[1];
+	long[] trianglePages = new long[1];
+
+	// walk statistics, added to by every thread walking the mesh
+	final LongAdder walks = new LongAdder();
+	final LongAdder walkSteps = new LongAdder();
+	final LongAdder fullScans = new LongAdder();
+
+	// triangles removed and created by the last retriangulation
+	int[] cavity = new int[16];
+	int cavitySize = 0;
+	int[] created = new int[16];
+	int createdSize = 0;
+
+	// scratch of the cavity search, kept from one insertion to the next:
+	// a triangle is in the cavity when its stamp is the current epoch, and
+	// fan holds the new triangle whose boundary edge starts at a vertex
+	private int[] stamp = new int[0];
+	private int epoch = 0;
+	private int[] fan = new int[0];
+	private int[] flips = new int[16];	// triangles of the star whose outer edge is to be checked
+	private int exactFrom = Integer.MAX_VALUE;	// lowest vertex whose predicates are done on integers
+
+	public Mesh() {
+		this(16);
+	}
+
+	public Mesh(int vertexCapacity) {
+		xy = new double[2*vertexCapacity];
+		points = new Point[vertexCapacity];
+		vertexTri = new int[vertexCapacity];
+		tv = new int[6*vertexCapacity];
+		tn = new int[6*vertexCapacity];
+	}
+
+	/**
+	 * Mesh over arrays filled elsewhere, with every slot live. Only the
+	 * triangle of each vertex is worked out, no predicate is run.
+	 */
+	Mesh(double[] xy, int vertexCount, int[] tv, int[] tn, int triangleCount) {
+		this.xy = xy;
+		this.vertexCount = vertexCount;
+		this.points = new Point[xy.length/2];
+		this.vertexTri = new int[points.length];
+		this.tv = tv;
+		this.tn = tn;
+		this.triangleCount = triangleCount;
+		this.live = triangleCount;
+		Arrays.fill(vertexTri, NONE);
+		for(int k=0;k<3*triangleCount;k++) vertexTri[tv[k]] = k/3;
+	}
+
+	/**
+	 * Grows the arrays to hold the given number of vertices
+	 * and the triangles they will make, at least doubling them so
+	 * that many small reservations stay linear
+	 */
+	public void reserve(int vertices) {
+		if(vertices > points.length) {
+			int n = Math.max(vertices, 2*points.length);
+			xy = Arrays.copyOf(xy, 2*n);
+			points = Arrays.copyOf(points, n);
+			vertexTri = Arrays.copyOf(vertexTri, n);
+		}
+		if(6*vertices > tv.length) {
+			int n = Math.max(6*vertices, 2*tv.length);
+			tv = Arrays.copyOf(tv, n);
+			tn = Arrays.copyOf(tn, n);
+		}
+	}
+
+	public int addVertex(double x, double y, Point point) {
+		int v;
+		if(freeVertexCount > 0) v = freeVertices[--freeVertexCount];
+		else {
+			if(vertexCount == points.length) reserve(2*points.length);
+			v = vertexCount++;
+		}
+		xy[2*v] = x;
+		xy[2*v+1] = y;
+		points[v] = point;
+		vertexTri[v] = NONE;
+		changedVertex(v);
+		return v;
+	}
+
+	/**
+	 * Hands the slot of vertex v, which no triangle uses any more,
+	 * back to addVertex
+	 */
+	void freeVertex(int v) {
+		if(freeVertexCount == freeVertices.length)
+			freeVertices = Arrays.copyOf(freeVertices, Math.max(16, 2*freeVertexCount));
+		freeVertices[freeVertexCount++] = v;
+		points[v] = null;
+		vertexTri[v] = NONE;
+		changedVertex(v);
+	}
+
+	/**
+	 * Adds a triangle without neighbours, reordering the vertices
+	 * counter-clockwise if needed
+	 */
+	public int addTriangle(int a, int b, int c) {
+		if(orient(a,b,c) < 0) {
+			int tmp = b;
+			b = c;
+			c = tmp;
+		}
+		int t = newTriangle(a,b,c);
+		tn[3*t] = tn[3*t+1] = tn[3*t+2] = NONE;
+		vertexTri[a] = vertexTri[b] = vertexTri[c] = t;
+		changedVertex(a);
+		changedVertex(b);
+		changedVertex(c);
+		return t;
+	}
+
+	/**
+	 * Makes count fresh triangle slots 0..count-1 for bulk construction,
+	 * dropping every triangle held so far
+	 */
+	void allocateTriangles(int count) {
+		if(3*count > tv.length) {
+			tv = new int[3*count];
+			tn = new int[3*count];
+		}
+		triangleCount = count;
+		live = count;
+		freeList = NONE;
+	}
+
+	/**
+	 * Drops all the triangles, keeping the vertices
+	 */
+	void clear() {
+		allocateTriangles(0);
+		Arrays.fill(vertexTri, 0, vertexCount, NONE);
+	}
+
+	public double x(int v) {
+		return xy[2*v];
+	}
+
+	public double y(int v) {
+		return xy[2*v+1];
+	}
+
+	public Point point(int v) {
+		Point p = points[v];
+		if(p == null) points[v] = p = new Point(xy[2*v],xy[2*v+1]);
+		return p;
+	}
+
+	/**
+	 * Some live triangle having v as a vertex
+	 */
+	public int triangleOf(int v) {
+		return vertexTri[v];
+	}
+
+	public int vertex(int t, int i) {
+		return tv[3*t+i];
+	}
+
+	public int neighbour(int t, int i) {
+		return tn[3*t+i];
+	}
+
+	public boolean isLive(int t) {
+		return t >= 0 && t < triangleCount && tv[3*t] != NONE;
+	}
+
+	/**
+	 * True if t has a vertex of the initial triangle, which puts it
+	 * outside the convex hull of the sites
+	 */
+	public boolean isHull(int t) {
+		return tv[3*t] < 3 || tv[3*t+1] < 3 || tv[3*t+2] < 3;
+	}
+
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	public int triangleCount() {
+		return triangleCount;
+	}
+
+	public int size() {
+		return live;
+	}
+
+	/**
+	 * Position (0,1,2) of vertex v in triangle t, or NONE
+	 */
+	public int indexOf(int t, int v) {
+		int k = 3*t;
+		if(tv[k] == v) return 0;
+		if(tv[k+1] == v) return 1;
+		if(tv[k+2] == v) return 2;
+		return NONE;
+	}
+
+	/**
+	 * Position of the vertex of t lying exactly at (x,y), or NONE
+	 */
+	public int vertexAt(int t, double x, double y) {
+		for(int i=0;i<3;i++) {
+			int v = tv[3*t+i];
+			if(xy[2*v] == x && xy[2*v+1] == y) return i;
+		}
+		return NONE;
+	}
+
+	/**
+	 * True if (x,y) lies inside or on the boundary of t
+	 */
+	public boolean contains(int t, double x, double y) {
+		int k = 3*t;
+		return orient(tv[k+1],tv[k+2],x,y) >= 0
+			&& orient(tv[k+2],tv[k],x,y) >= 0
+			&& orient(tv[k],tv[k+1],x,y) >= 0;
+	}
+
+	/**
+	 * Walks from triangle start towards (x,y) and returns the triangle holding it,
+	 * or NONE if it lies outside the mesh. Falls back to checking every triangle
+	 * if the walk does not terminate.
+	 */
+	public int locate(double x, double y, int start) {
+
+		int t = isLive(start) ? start : anyTriangle();
+		int previous = NONE, steps = 0;
+		walks.increment();
+
+		for(; t != NONE && steps <= live; steps++) {
+
+			int next = t;
+			for(int j=0;j<3;j++) {
+				int i = (steps+j)%3;
+				int n = tn[3*t+i];
+				if(n == previous && n != NONE) continue;
+				if(orient(tv[3*t+(i+1)%3],tv[3*t+(i+2)%3],x,y) < 0) {
+					next = n;
+					if(n != NONE) break;
+				}
+			}
+			if(next == t || next == NONE) {
+				walkSteps.add(steps);
+				if(Metrics.on) Metrics.walk(steps);
+				return next;
+			}
+			previous = t;
+			t = next;
+		}
+
+		//Walk is cycling, check all triangles
+		walkSteps.add(steps);
+		fullScans.increment();
+		if(Metrics.on) Metrics.fullScan();
+		for(t=0;t<triangleCount;t++)
+			if(isLive(t) && contains(t,x,y)) return t;
+
+		return NONE;
+	}
+
+	/**
+	 * Walks the edges greedily from vertex v to the vertex nearest to (x,y).
+	 * In a Delaunay triangulation every other vertex has a nearer neighbour,
+	 * so the walk cannot get stuck. Only reads the mesh.
+	 */
+	public int nearestVertex(double x, double y, int v) {
+
+		double min = distance(v, x, y);
+		while(true) {
+			int next = v, start = vertexTri[v], t = start;
+
+			//each neighbour once around a closed fan
+			do {
+				int i = indexOf(t, v);
+				int u = tv[3*t+(i+1)%3];
+				double d = distance(u, x, y);
+				if(d < min) {
+					min = d;
+					next = u;
+				}
+				t = tn[3*t+(i+1)%3];
+			} while(t != start && t != NONE);
+
+			//both others of every triangle clockwise when it is open
+			if(t == NONE) {
+				t = start;
+				do {
+					int i = indexOf(t, v);
+					for(int j=1;j<=2;j++) {
+						int u = tv[3*t+(i+j)%3];
+						double d = distance(u, x, y);
+						if(d < min) {
+							min = d;
+							next = u;
+						}
+					}
+					t = tn[3*t+(i+2)%3];
+				} while(t != NONE);
+			}
+			if(next == v) return v;
+			v = next;
+		}
+	}
+
+	private double distance(int v, double x, double y) {
+		double dx = xy[2*v]-x, dy = xy[2*v+1]-y;
+		return dx*dx + dy*dy;
+	}
+
+	/**
+	 * Collects the triangles whose circumcircle holds (x,y), starting from t
+	 */
+	public void findCavity(double x, double y, int t) {
+		clearCavity();
+		addToCavity(t);
+
+		for(int k=0;k<cavitySize;k++) {
+			int c = cavity[k];
+			for(int i=0;i<3;i++) {
+				int n = tn[3*c+i];
+				if(n == NONE || inCavity(n)) continue;
+				if(inCircle(n,x,y) >= 0) addToCavity(n);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the current cavity by a fan of triangles around v
+	 * and returns one of the new triangles
+	 */
+	public int retriangulate(int v) {
+
+		//a triangle (v,a,b) on each boundary edge, made before the cavity is
+		//freed so that the cavity is still whole while it is read
+		if(fan.length < vertexTri.length) fan = new int[vertexTri.length];
+		createdSize = 0;
+		for(int k=0;k<cavitySize;k++) {
+			int c = cavity[k];
+			for(int i=0;i<3;i++) {
+				int n = tn[3*c+i];
+				if(n != NONE && inCavity(n)) continue;
+				int a = tv[3*c+(i+1)%3], b = tv[3*c+(i+2)%3];
+				int t = newTriangle(v,a,b);
+				tn[3*t] = n;
+				if(n != NONE) {
+					tn[3*n+indexOfNeighbour(n,c)] = t;
+					changedTriangle(n);
+				}
+				vertexTri[a] = t;
+				changedVertex(a);
+				fan[a] = t;
+				if(createdSize == created.length) created = Arrays.copyOf(created, 2*createdSize);
+				created[createdSize++] = t;
+			}
+		}
+
+		for(int k=0;k<cavitySize;k++) freeTriangle(cavity[k]);
+
+		//link the fan, (v,a,b) meets (v,b,c) across the edge v-b
+		for(int k=0;k<createdSize;k++) {
+			int t1 = created[k];
+			int t2 = fan[tv[3*t1+2]];
+			tn[3*t1+1] = t2;
+			tn[3*t2+2] = t1;
+		}
+
+		vertexTri[v] = created[0];
+		changedVertex(v);
+		return created[0];
+	}
+
+	/**
+	 * Inserts a new vertex at (x,y) lying in triangle t
+	 */
+	public int insert(double x, double y, Point point, int t) {
+		findCavity(x,y,t);
+		int v = addVertex(x,y,point);
+		retriangulate(v);
+		return v;
+	}
+
+	/**
+	 * Places vertex v, lying in triangle t, by splitting t in three and
+	 * flipping the outer edges of the star of v until they are Delaunay
+	 * (Lawson). A flip is made exactly where the Bowyer-Watson cavity
+	 * would take the triangle, so both give the same mesh. The triangles
+	 * rewritten are left in cavity and those of the star in created, some
+	 * slots being in both. Returns one of the new triangles.
+	 */
+	public int flipInsert(int v, int t) {
+
+		int a = tv[3*t], b = tv[3*t+1], c = tv[3*t+2];
+		int na = tn[3*t], nb = tn[3*t+1], nc = tn[3*t+2];
+		clearCavity();
+		addToCavity(t);
+
+		//(v,b,c) keeps the slot of t, a point on an edge leaves it flat
+		//and the first flip splits the triangle beyond
+		int t1 = newTriangle(v,c,a), t2 = newTriangle(v,a,b);
+		setTriangle(t, v, b, c, na, t1, t2);
+		setNeighbours(t1, nb, t2, t);
+		setNeighbours(t2, nc, t, t1);
+		if(nb != NONE) relink(nb, t, t1);
+		if(nc != NONE) relink(nc, t, t2);
+		vertexTri[a] = t1;
+		vertexTri[v] = t;
+		changedVertex(a);
+		changedVertex(v);
+
+		created[0] = flips[0] = t;
+		created[1] = flips[1] = t1;
+		created[2] = flips[2] = t2;
+		createdSize = 3;
+		int count = 3;
+
+		double x = xy[2*v], y = xy[2*v+1];
+		while(count > 0) {
+			int s = flips[--count];
+			int n = tn[3*s];
+			if(n == NONE || inCircle(n,x,y) < 0) continue;
+
+			//(v,p,q) and (d,q,p) become (v,p,d) and (v,d,q)
+			int j = indexOfNeighbour(n,s);
+			int p = tv[3*s+1], q = tv[3*s+2], d = tv[3*n+j];
+			int np = tn[3*n+(j+1)%3], nq = tn[3*n+(j+2)%3];
+			int sp = tn[3*s+1], sq = tn[3*s+2];
+			setTriangle(s, v, p, d, np, n, sq);
+			setTriangle(n, v, d, q, nq, sp, s);
+			if(np != NONE) relink(np, n, s);
+			if(sp != NONE) relink(sp, s, n);
+			vertexTri[p] = s;
+			vertexTri[q] = n;
+			changedVertex(p);
+			changedVertex(q);
+
+			addToCavity(n);
+			if(createdSize == created.length) created = Arrays.copyOf(created, 2*createdSize);
+			created[createdSize++] = n;
+			if(count+2 > flips.length) flips = Arrays.copyOf(flips, 2*flips.length);
+			flips[count++] = s;
+			flips[count++] = n;
+		}
+		return t;
+	}
+
+	/**
+	 * This mesh if its triangles without a corner cover the convex hull of
+	 * the sites, so the Delaunay graph of the sites alone is the one among
+	 * them here. Otherwise a corner near the sites lies in the circle of
+	 * some hull edges and hides them behind its fan; a copy is returned
+	 * where those pockets are filled by flipping the corner edges out of
+	 * them, as though the corners were infinitely far, and then the edges
+	 * between the new triangles until they are Delaunay.
+	 */
+	Mesh closedHull() {
+		int[] sites = aroundCorners();
+		for(int k=0;k<sites.length;k++) {
+			if(pocket(sites[k]) == NONE) continue;
+			Mesh copy = new Mesh(this);
+			copy.closeHull();
+			return copy;
+		}
+		return this;
+	}
+
+	/**
+	 * Fills the pockets of closedHull() in this mesh. Triangles without a
+	 * corner may have been deleted, as StreamingTriangulation does, so long
+	 * as every site with a corner around it points at a triangle it shares
+	 * with one; the flips never reach past them.
+	 */
+	void closeHull() {
+		int[] stack = aroundCorners();
+		int top = stack.length;
+		while(top > 0) {
+			int a = stack[--top];
+			for(int t=pocket(a);t!=NONE;t=pocket(a)) {
+				//(a,p,c) and (a,c,d) become (p,c,d) and (p,d,a)
+				int p = tv[3*t+(indexOf(t,a)+1)%3];
+				int n = flip(t, indexOf(t,p));
+				int d = tv[3*n+1];
+				if(top+2 > stack.length) stack = Arrays.copyOf(stack, Math.max(16, 2*stack.length));
+				stack[top++] = p;
+				if(d < 3) continue;
+				stack[top++] = d;
+				legalize(n);
+			}
+		}
+	}
+
+	/**
+	 * Points every vertex at a live triangle of it, one with a corner if
+	 * it has any, once deleteTriangle has left some pointing at dead slots
+	 */
+	void relinkVertices() {
+		for(int t=0;t<triangleCount;t++) {
+			if(tv[3*t] == NONE) continue;
+			boolean hull = isHull(t);
+			for(int i=0;i<3;i++) {
+				int v = tv[3*t+i], s = vertexTri[v];
+				if(hull || s == NONE || tv[3*s] == NONE || indexOf(s,v) == NONE) vertexTri[v] = t;
+			}
+		}
+	}
+
+	private Mesh(Mesh mesh) {
+		xy = mesh.xy.clone();
+		points = mesh.points.clone();
+		vertexTri = mesh.vertexTri.clone();
+		vertexCount = mesh.vertexCount;
+		tv = mesh.tv.clone();
+		tn = mesh.tn.clone();
+		triangleCount = mesh.triangleCount;
+		freeList = mesh.freeList;
+		live = mesh.live;
+		freeVertices = mesh.freeVertices.clone();
+		freeVertexCount = mesh.freeVertexCount;
+		exactFrom = mesh.exactFrom;
+	}
+
+	/**
+	 * The sites on a triangle with a corner, some more than once
+	 */
+	private int[] aroundCorners() {
+		int[] sites = new int[16];
+		int n = 0;
+		for(int c=0;c<3;c++) {
+			int start = vertexTri[c];
+			for(int turn=1;turn<=2;turn++) {
+				int t = start;
+				do {
+					for(int i=0;i<3;i++) {
+						if(tv[3*t+i] < 3) continue;
+						if(n == sites.length) sites = Arrays.copyOf(sites, 2*n);
+						sites[n++] = tv[3*t+i];
+					}
+					t = tn[3*t+(indexOf(t,c)+turn)%3];
+				} while(t != NONE && t != start);
+			}
+		}
+		return Arrays.copyOf(sites, n);
+	}
+
+	/**
+	 * For site a on the hull, a triangle (a,p,c) where c is the first of a
+	 * run of corners around a and the site after the run lies to the left
+	 * of a to p, so a sits in a pocket below the hull edge. NONE if there is
+	 * no such run.
+	 */
+	private int pocket(int a) {
+		//from the first triangle clockwise if the star is open
+		int start = vertexTri[a], t = start;
+		for(int s=tn[3*t+(indexOf(t,a)+2)%3];s!=NONE && s!=start;s=tn[3*s+(indexOf(s,a)+2)%3]) t = s;
+		start = t;
+		do {
+			int j = indexOf(t, a), p = tv[3*t+(j+1)%3], c = tv[3*t+(j+2)%3];
+			int next = tn[3*t+(j+1)%3];
+			if(p >= 3 && c < 3) {
+				//go round the run of corners to the site after it
+				int s = next, q;
+				do {
+					int i = indexOf(s, a);
+					q = tv[3*s+(i+2)%3];
+					if(q >= 3) break;
+					s = tn[3*s+(i+1)%3];
+				} while(s != t);
+				if(q >= 3 && q != p && orient(a,p,q) > 0) return t;
+			}
+			t = next;
+		} while(t != start && t != NONE);
+		return NONE;
+	}
+
+	/**
+	 * Flips the edge opposite vertex i of t. With t=(v,p,q) and (d,q,p)
+	 * beyond, t becomes (v,p,d) and the other triangle, returned, (v,d,q).
+	 */
+	private int flip(int t, int i) {
+		int v = tv[3*t+i], p = tv[3*t+(i+1)%3], q = tv[3*t+(i+2)%3];
+		int n = tn[3*t+i], j = indexOfNeighbour(n,t), d = tv[3*n+j];
+		int np = tn[3*n+(j+1)%3], nq = tn[3*n+(j+2)%3];
+		int sp = tn[3*t+(i+1)%3], sq = tn[3*t+(i+2)%3];
+		setTriangle(t, v, p, d, np, n, sq);
+		setTriangle(n, v, d, q, nq, sp, t);
+		if(np != NONE) relink(np, n, t);
+		if(sp != NONE) relink(sp, t, n);
+		vertexTri[v] = t;
+		vertexTri[p] = t;
+		vertexTri[q] = n;
+		vertexTri[d] = n;
+		return n;
+	}
+
+	/**
+	 * Flips edges between triangles of sites, starting from those of t,
+	 * until each such triangle has no site of its neighbours in its circle
+	 */
+	private void legalize(int t) {
+		int[] stack = flips;
+		int count = 0;
+		stack[count++] = t;
+		while(count > 0) {
+			int s = stack[--count];
+			if(isHull(s)) continue;
+			for(int i=0;i<3;i++) {
+				int n = tn[3*s+i];
+				if(n == NONE || isHull(n)) continue;
+				int d = tv[3*n+indexOfNeighbour(n,s)];
+				if(inCircle(s, xy[2*d], xy[2*d+1]) <= 0) continue;
+				int m = flip(s, i);
+				if(count+2 > stack.length) flips = stack = Arrays.copyOf(stack, 2*stack.length);
+				stack[count++] = s;
+				stack[count++] = m;
+				break;
+			}
+		}
+	}
+
+	private void setTriangle(int t, int a, int b, int c, int na, int nb, int nc) {
+		tv[3*t] = a;
+		tv[3*t+1] = b;
+		tv[3*t+2] = c;
+		setNeighbours(t, na, nb, nc);
+	}
+
+	private void setNeighbours(int t, int na, int nb, int nc) {
+		tn[3*t] = na;
+		tn[3*t+1] = nb;
+		tn[3*t+2] = nc;
+		changedTriangle(t);
+	}
+
+	/**
+	 * Points the side of n that faced triangle from to triangle to
+	 */
+	private void relink(int n, int from, int to) {
+		tn[3*n+indexOfNeighbour(n,from)] = to;
+		changedTriangle(n);
+	}
+
+	/**
+	 * Moves vertices 0,1,2 to corners, a triangle holding the old one, and
+	 * triangulates every live vertex again inside it, keeping the vertex
+	 * numbers. All the old slots are left in cavity and the new triangles
+	 * in created.
+	 */
+	void moveCorners(double[] corners, Random random) {
+
+		int n = 0, old = triangleCount;
+		int[] vertices = new int[vertexCount];
+		for(int v=3;v<vertexCount;v++)
+			if(vertexTri[v] != NONE) vertices[n++] = v;
+		double[] sites = new double[2*n];
+		for(int i=0;i<n;i++) {
+			sites[2*i] = xy[2*vertices[i]];
+			sites[2*i+1] = xy[2*vertices[i]+1];
+		}
+
+		triangleCount = 0;
+		freeList = NONE;
+		live = 0;
+		Arrays.fill(vertexTri, 0, vertexCount, NONE);
+		for(int v=0;v<3;v++) {
+			xy[2*v] = corners[2*v];
+			xy[2*v+1] = corners[2*v+1];
+			points[v] = null;
+			changedVertex(v);
+		}
+
+		setInteger(isInteger());
+		int t = addTriangle(0, 1, 2);
+		for(int i : SpatialSort.brio(sites, n, random)) {
+			int v = vertices[i];
+			t = locate(xy[2*v], xy[2*v+1], t);
+			findCavity(xy[2*v], xy[2*v+1], t);
+			t = retriangulate(v);
+		}
+
+		clearCavity();
+		for(t=0;t<old;t++) addToCavity(t);
+		createdSize = 0;
+		for(t=0;t<triangleCount;t++) {
+			if(tv[3*t] == NONE) continue;
+			if(createdSize == created.length) created = Arrays.copyOf(created, 2*createdSize);
+			created[createdSize++] = t;
+		}
+	}
+
+	/**
+	 * Removes vertex v and fills the hole left by its star with Delaunay
+	 * ears. The star must be closed, so v may not lie on the hull.
+	 * Returns one of the new triangles.
+	 */
+	public int remove(int v) {
+
+		//the link of v counter-clockwise, edge k runs from ring[k] to ring[k+1]
+		int t = vertexTri[v];
+		int k = 0;
+		clearCavity();
+		do {
+			addToCavity(t);
+			t = tn[3*t+(indexOf(t,v)+1)%3];
+			if(t == NONE)
+				throw new IllegalArgumentException("Vertex lies on the hull");
+		} while(t != vertexTri[v]);
+
+		int n = cavitySize;
+		int[] ring = new int[n], next = new int[n], prev = new int[n];
+		int[] outer = new int[n], outerSlot = new int[n];
+		for(k=0;k<n;k++) {
+			int c = cavity[k], i = indexOf(c,v);
+			ring[k] = tv[3*c+(i+1)%3];
+			int o = tn[3*c+i];
+			outer[k] = o;
+			outerSlot[k] = o == NONE ? NONE : 3*o+indexOfNeighbour(o,c);
+			next[k] = (k+1)%n;
+			prev[k] = (k+n-1)%n;
+		}
+		for(k=0;k<n;k++) freeTriangle(cavity[k]);
+		vertexTri[v] = NONE;
+		changedVertex(v);
+
+		double vx = xy[2*v], vy = xy[2*v+1];
+		double[] power = new double[n];
+		createdSize = 0;
+		int first = 0;
+
+		for(int left=n;left>=3;left--) {
+
+			//ears in order of the power of v against their circle (Devillers),
+			//each checked exactly for an empty circle before being cut
+			k = first;
+			for(int j=0;j<left;j++, k=next[k]) {
+				int a = ring[prev[k]], b = ring[k], c = ring[next[k]];
+				double det = Point.orient2d(xy[2*a],xy[2*a+1],xy[2*b],xy[2*b+1],xy[2*c],xy[2*c+1]);
+				power[k] = left == 3 ? 0 : det <= 0 ? Double.NaN : -Point.incircle(xy[2*a],xy[2*a+1],
+						xy[2*b],xy[2*b+1],xy[2*c],xy[2*c+1],vx,vy)/det;
+			}
+
+			int ear = NONE;
+			while(ear == NONE) {
+				int best = NONE;
+				k = first;
+				for(int j=0;j<left;j++, k=next[k])
+					if(!Double.isNaN(power[k]) && (best == NONE || power[k] < power[best])) best = k;
+				if(best == NONE)
+					throw new IllegalStateException("No Delaunay ear in the star of "+v);
+				if(isEmptyEar(ring, next, prev[best], left)) ear = best;
+				else power[best] = Double.NaN;
+			}
+
+			//cut the ear (a,b,c), its edge c-a becomes the hole's edge a-c
+			int a = prev[ear], c = next[ear];
+			int tri = newTriangle(ring[a], ring[ear], ring[c]);
+			link(tri, 0, outer[ear], outerSlot[ear]);
+			link(tri, 2, outer[a], outerSlot[a]);
+			vertexTri[ring[a]] = vertexTri[ring[ear]] = vertexTri[ring[c]] = tri;
+			changedVertex(ring[a]);
+			changedVertex(ring[ear]);
+			changedVertex(ring[c]);
+			if(createdSize == created.length) created = Arrays.copyOf(created, 2*createdSize);
+			created[createdSize++] = tri;
+
+			if(left == 3) {
+				link(tri, 1, outer[c], outerSlot[c]);
+				break;
+			}
+			tn[3*tri+1] = NONE;
+			outer[a] = tri;
+			outerSlot[a] = 3*tri+1;
+			next[a] = c;
+			prev[c] = a;
+			first = a;
+		}
+		return created[createdSize-1];
+	}
+
+	/**
+	 * True if the circle through the ear starting at ring position a holds
+	 * none of the other left vertices of the ring
+	 */
+	private boolean isEmptyEar(int[] ring, int[] next, int a, int left) {
+		int b = next[a], c = next[b];
+		int pa = ring[a], pb = ring[b], pc = ring[c];
+		for(int j=3, k=next[c];j<left;j++, k=next[k]) {
+			int p = ring[k];
+			if(inCircle(pa,pb,pc,xy[2*p],xy[2*p+1]) > 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Makes n, whose slot pointing back is slot, the neighbour i of t
+	 */
+	private void link(int t, int i, int n, int slot) {
+		tn[3*t+i] = n;
+		if(n != NONE) {
+			tn[slot] = t;
+			changedTriangle(n);
+		}
+	}
+
+	/**
+	 * Drops triangle t, leaving its neighbours without a neighbour there
+	 */
+	void deleteTriangle(int t) {
+		for(int i=0;i<3;i++) {
+			int n = tn[3*t+i];
+			if(n != NONE) {
+				tn[3*n+indexOfNeighbour(n,t)] = NONE;
+				changedTriangle(n);
+			}
+		}
+		freeTriangle(t);
+	}
+
+	int anyTriangle() {
+		for(int t=triangleCount-1;t>=0;t--)
+			if(tv[3*t] != NONE) return t;
+		return NONE;
+	}
+
+	int indexOfNeighbour(int t, int n) {
+		int k = 3*t;
+		if(tn[k] == n) return 0;
+		if(tn[k+1] == n) return 1;
+		if(tn[k+2] == n) return 2;
+		return NONE;
+	}
+
+	/**
+	 * Empties the cavity by moving to a new epoch, so no stamp needs
+	 * clearing but once every 2^32 cavities
+	 */
+	void clearCavity() {
+		cavitySize = 0;
+		if(stamp.length < tv.length/3) stamp = Arrays.copyOf(stamp, tv.length/3);
+		if(++epoch == 0) {
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+
+	void addToCavity(int t) {
+		if(cavitySize == cavity.length) cavity = Arrays.copyOf(cavity, 2*cavitySize);
+		cavity[cavitySize++] = t;
+		stamp[t] = epoch;
+	}
+
+	boolean inCavity(int t) {
+		return stamp[t] == epoch;
+	}
+
+	private int newTriangle(int a, int b, int c) {
+		int t;
+		if(freeList != NONE) {
+			t = freeList;
+			freeList = tn[3*t];
+		}
+		else {
+			if(3*triangleCount == tv.length) {
+				tv = Arrays.copyOf(tv, 2*tv.length);
+				tn = Arrays.copyOf(tn, 2*tn.length);
+			}
+			t = triangleCount++;
+		}
+		tv[3*t] = a;
+		tv[3*t+1] = b;
+		tv[3*t+2] = c;
+		live++;
+		changedTriangle(t);
+		return t;
+	}
+
+	private void freeTriangle(int t) {
+		tv[3*t] = tv[3*t+1] = tv[3*t+2] = NONE;
+		tn[3*t] = freeList;
+		freeList = t;
+		live--;
+		changedTriangle(t);
+	}
+
+	/**
+	 * Forgets the changes noted so far, once a MeshView holds them
+	 */
+	void clearChanges() {
+		Arrays.fill(vertexPages, 0);
+		Arrays.fill(trianglePages, 0);
+	}
+
+	private void changedVertex(int v) {
+		vertexPages = set(vertexPages, v >>> MeshView.SHIFT);
+	}
+
+	private void changedTriangle(int t) {
+		trianglePages = set(trianglePages, t >>> MeshView.SHIFT);
+	}
+
+	private static long[] set(long[] bits, int page) {
+		int w = page >>> 6;
+		if(w >= bits.length) bits = Arrays.copyOf(bits, Math.max(2*bits.length, w+1));
+		bits[w] |= 1L << page;
+		return bits;
+	}
+
+	/**
+	 * Writes the center of the circle through the vertices of t
+	 * to out[at] and out[at+1]
+	 */
+	public void circumcenter(int t, double[] out, int at) {
+		int a = tv[3*t], b = tv[3*t+1], c = tv[3*t+2];
+		double ax = xy[2*a], ay = xy[2*a+1];
+		double bx = xy[2*b]-ax, by = xy[2*b+1]-ay;
+		double cx = xy[2*c]-ax, cy = xy[2*c+1]-ay;
+		double d = 2*(bx*cy - by*cx);
+		double b2 = bx*bx + by*by, c2 = cx*cx + cy*cy;
+		out[at] = ax + (cy*b2 - by*c2)/d;
+		out[at+1] = ay + (bx*c2 - cx*b2)/d;
+	}
+
+	int orient(int a, int b, int c) {
+		return orient(a,b,xy[2*c],xy[2*c+1]);
+	}
+
+	int orient(int a, int b, double x, double y) {
+		if(a >= exactFrom && b >= exactFrom && IntegerPredicates.fits(x) && IntegerPredicates.fits(y))
+			return IntegerPredicates.orient((long)xy[2*a],(long)xy[2*a+1],(long)xy[2*b],(long)xy[2*b+1],(long)x,(long)y);
+		double det = Point.orient2d(xy[2*a],xy[2*a+1],xy[2*b],xy[2*b+1],x,y);
+		return det < 0 ? -1 : (det > 0 ? 1 : 0);
+	}
+
+	/**
+	 * 1 if (x,y) is inside the circumcircle of t and -1 if outside. Points
+	 * on the circle are decided by {@link Point#perturbedIncircle}, so the
+	 * answer is only 0 for a vertex of t and the Delaunay mesh is the same
+	 * whatever the order or the method it was built by.
+	 */
+	int inCircle(int t, double x, double y) {
+		return inCircle(tv[3*t], tv[3*t+1], tv[3*t+2], x, y);
+	}
+
+	int inCircle(int a, int b, int c, double x, double y) {
+		if(a >= exactFrom && b >= exactFrom && c >= exactFrom && IntegerPredicates.fits(x) && IntegerPredicates.fits(y))
+			return IntegerPredicates.perturbedIncircle((long)xy[2*a],(long)xy[2*a+1],(long)xy[2*b],(long)xy[2*b+1],
+					(long)xy[2*c],(long)xy[2*c+1],(long)x,(long)y);
+		return Point.perturbedIncircle(xy[2*a],xy[2*a+1],xy[2*b],xy[2*b+1],xy[2*c],xy[2*c+1],x,y);
+	}
+
+	/**
+	 * Whether every site has integer coordinates within
+	 * IntegerPredicates.LIMIT, which the caller checks. Predicates on such
+	 * vertices, and on the corners when they fit too, then run in long
+	 * arithmetic.
+	 */
+	boolean isInteger() {
+		return exactFrom < Integer.MAX_VALUE;
+	}
+
+	void setInteger(boolean integer) {
+		exactFrom = Integer.MAX_VALUE;
+		if(!integer) return;
+		exactFrom = 0;
+		for(int v=0;v<3 && v<vertexCount;v++)
+			if(!IntegerPredicates.fits(xy[2*v]) || !IntegerPredicates.fits(xy[2*v+1])) exactFrom = 3;
+	}
+
+}
@@ -0,0 +1,298 @@
+package Voronoi;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of a {@link Mesh} at one moment, to be read on any
+ * thread while the mesh goes on changing.
+ *
+ * The arrays are cut into pages of PAGE vertices or triangles, and the
+ * pages gathered in chunks of PAGE pages. A view copies only the pages
+ * the mesh changed since the view before it and shares all the others,
+ * and whole chunks, with that one, so a view after an insertion costs a
+ * few pages and chunk tables. The view of a level of a {@link Hierarchy} links to the
+ * view of the level above, through which nearestVertex(x,y) descends.
+ *
+ * Readers find nearest sites and Voronoi cells on a view as they would on
+ * the Triangulation and its {@link VoronoiDiagram}, without locking.
+ *
+ * @author sohit
+ *
+ */
+public final class MeshView {
+
+	static final int SHIFT = 6;
+	static final int PAGE = 1 << SHIFT;		// slots per page, and pages per chunk
+	private static final int MASK = PAGE-1;
+
+	final Mesh source;
+	private final MeshView above;
+	private final double[][][] xy;			// chunk, page, slot
+	private final int[][][] vertexTri;
+	private final int[][][] down;			// vertex of the level below, upper levels only
+	private final int[][][] tv;
+	private final int[][][] tn;
+	private final int vertexCount;
+	private final int triangleCount;
+	private final int live;
+
+	/**
+	 * View of mesh, sharing the pages left unchanged since previous when
+	 * that is a view of the same mesh. Clears the changes noted by mesh.
+	 */
+	MeshView(Mesh mesh, MeshView previous, int[] down, MeshView above) {
+		if(previous != null && previous.source != mesh) previous = null;
+		source = mesh;
+		this.above = above;
+		vertexCount = mesh.vertexCount;
+		triangleCount = mesh.triangleCount;
+		live = mesh.size();
+
+		long[] changed = mesh.vertexPages;
+		xy = paged(mesh.xy, 2, vertexCount, previous == null ? null : previous.xy, changed);
+		vertexTri = paged(mesh.vertexTri, 1, vertexCount, previous == null ? null : previous.vertexTri, changed);
+		this.down = down == null ? null : paged(down, 1, vertexCount, previous == null ? null : previous.down, changed);
+		changed = mesh.trianglePages;
+		tv = paged(mesh.tv, 3, triangleCount, previous == null ? null : previous.tv, changed);
+		tn = paged(mesh.tn, 3, triangleCount, previous == null ? null : previous.tn, changed);
+		mesh.clearChanges();
+	}
+
+	/**
+	 * Pages of the first count slots of array, stride entries each. A
+	 * chunk of PAGE pages is one word of the bits changed, so chunks and
+	 * pages without a bit set are taken from previous.
+	 */
+	private static int[][][] paged(int[] array, int stride, int count, int[][][] previous, long[] changed) {
+		int pages = (count+MASK) >>> SHIFT;
+		int[][][] chunks = new int[(pages+MASK) >>> SHIFT][][];
+		for(int c=0;c<chunks.length;c++) {
+			long bits = c < changed.length ? changed[c] : -1L;
+			int[][] old = previous != null && c < previous.length ? previous[c] : null;
+			if(old != null && bits == 0) {
+				chunks[c] = old;
+				continue;
+			}
+			int[][] chunk = chunks[c] = new int[PAGE][];
+			for(int p=0;p<PAGE && (c << SHIFT)+p < pages;p++) {
+				if(old != null && old[p] != null && (bits & 1L << p) == 0) chunk[p] = old[p];
+				else {
+					int from = stride*((c << SHIFT)+p << SHIFT);
+					chunk[p] = Arrays.copyOfRange(array, from, from+stride*PAGE);
+				}
+			}
+		}
+		return chunks;
+	}
+
+	private static double[][][] paged(double[] array, int stride, int count, double[][][] previous, long[] changed) {
+		int pages = (count+MASK) >>> SHIFT;
+		double[][][] chunks = new double[(pages+MASK) >>> SHIFT][][];
+		for(int c=0;c<chunks.length;c++) {
+			long bits = c < changed.length ? changed[c] : -1L;
+			double[][] old = previous != null && c < previous.length ? previous[c] : null;
+			if(old != null && bits == 0) {
+				chunks[c] = old;
+				continue;
+			}
+			double[][] chunk = chunks[c] = new double[PAGE][];
+			for(int p=0;p<PAGE && (c << SHIFT)+p < pages;p++) {
+				if(old != null && old[p] != null && (bits & 1L << p) == 0) chunk[p] = old[p];
+				else {
+					int from = stride*((c << SHIFT)+p << SHIFT);
+					chunk[p] = Arrays.copyOfRange(array, from, from+stride*PAGE);
+				}
+			}
+		}
+		return chunks;
+	}
+
+	public double x(int v) {
+		return xy[v >>> 2*SHIFT][v >>> SHIFT & MASK][2*(v & MASK)];
+	}
+
+	public double y(int v) {
+		return xy[v >>> 2*SHIFT][v >>> SHIFT & MASK][2*(v & MASK)+1];
+	}
+
+	public int triangleOf(int v) {
+		return vertexTri[v >>> 2*SHIFT][v >>> SHIFT & MASK][v & MASK];
+	}
+
+	public int vertex(int t, int i) {
+		return tv[t >>> 2*SHIFT][t >>> SHIFT & MASK][3*(t & MASK)+i];
+	}
+
+	public int neighbour(int t, int i) {
+		return tn[t >>> 2*SHIFT][t >>> SHIFT & MASK][3*(t & MASK)+i];
+	}
+
+	public boolean isLive(int t) {
+		return t >= 0 && t < triangleCount && vertex(t, 0) != Mesh.NONE;
+	}
+
+	/**
+	 * True if t has a vertex of the initial triangle, as {@link Mesh#isHull(int)}
+	 */
+	public boolean isHull(int t) {
+		return vertex(t, 0) < 3 || vertex(t, 1) < 3 || vertex(t, 2) < 3;
+	}
+
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	public int triangleCount() {
+		return triangleCount;
+	}
+
+	public int size() {
+		return live;
+	}
+
+	/**
+	 * Position (0,1,2) of vertex v in triangle t, or NONE
+	 */
+	public int indexOf(int t, int v) {
+		int[] page = tv[t >>> 2*SHIFT][t >>> SHIFT & MASK];
+		int k = 3*(t & MASK);
+		if(page[k] == v) return 0;
+		if(page[k+1] == v) return 1;
+		if(page[k+2] == v) return 2;
+		return Mesh.NONE;
+	}
+
+	/**
+	 * Writes the center of the circle through the vertices of t
+	 * to out[at] and out[at+1]
+	 */
+	public void circumcenter(int t, double[] out, int at) {
+		int a = vertex(t, 0), b = vertex(t, 1), c = vertex(t, 2);
+		double ax = x(a), ay = y(a);
+		double bx = x(b)-ax, by = y(b)-ay;
+		double cx = x(c)-ax, cy = y(c)-ay;
+		double d = 2*(bx*cy - by*cx);
+		double b2 = bx*bx + by*by, c2 = cx*cx + cy*cy;
+		out[at] = ax + (cy*b2 - by*c2)/d;
+		out[at+1] = ay + (bx*c2 - cx*b2)/d;
+	}
+
+	/**
+	 * Vertex nearest to (x,y), walking down from the top level as
+	 * {@link Hierarchy#nearest(double, double)} does. It may be a vertex
+	 * of the initial triangle for points far outside the sites.
+	 */
+	public int nearestVertex(double x, double y) {
+		int v = above == null ? 0 : above.down(above.nearestVertex(x, y));
+		return nearestVertex(x, y, v);
+	}
+
+	/**
+	 * Greedy walk over the edges from vertex v to the vertex nearest to
+	 * (x,y), as {@link Mesh#nearestVertex(double, double, int)}
+	 */
+	public int nearestVertex(double x, double y, int v) {
+
+		double min = distance(v, x, y);
+		while(true) {
+			int next = v, start = triangleOf(v), t = start;
+
+			do {
+				int i = indexOf(t, v);
+				int u = vertex(t, (i+1)%3);
+				double d = distance(u, x, y);
+				if(d < min) {
+					min = d;
+					next = u;
+				}
+				t = neighbour(t, (i+1)%3);
+			} while(t != start && t != Mesh.NONE);
+
+			if(t == Mesh.NONE) {
+				t = start;
+				do {
+					int i = indexOf(t, v);
+					for(int j=1;j<=2;j++) {
+						int u = vertex(t, (i+j)%3);
+						double d = distance(u, x, y);
+						if(d < min) {
+							min = d;
+							next = u;
+						}
+					}
+					t = neighbour(t, (i+2)%3);
+				} while(t != Mesh.NONE);
+			}
+			if(next == v) return v;
+			v = next;
+		}
+	}
+
+	/**
+	 * Site nearest to (x,y), as {@link Triangulation#nearestSite(Point)},
+	 * or NONE if there are none. Only a point far outside the sites can be
+	 * nearer a vertex of the initial triangle; the sites are then scanned.
+	 */
+	public int nearestSite(double x, double y) {
+		int v = nearestVertex(x, y);
+		if(v >= 3) return v;
+
+		double min = Double.POSITIVE_INFINITY;
+		v = Mesh.NONE;
+		for(int u=3;u<vertexCount;u++) {
+			if(triangleOf(u) == Mesh.NONE) continue;
+			double d = distance(u, x, y);
+			if(d < min) {
+				min = d;
+				v = u;
+			}
+		}
+		return v;
+	}
+
+	/**
+	 * Voronoi cell of the site at vertex v as x0,y0,x1,y1,...
+	 * counter-clockwise, as {@link VoronoiDiagram#cell(int)} gives it
+	 */
+	public double[] cell(int v) {
+		if(v < 3 || v >= vertexCount || triangleOf(v) == Mesh.NONE)
+			throw new IllegalArgumentException("No site at vertex "+v);
+		int start = triangleOf(v), t = start;
+		int n = 0;
+		do {
+			n++;
+			t = neighbour(t, (indexOf(t, v)+1)%3);
+		} while(t != start);
+
+		double[] cell = new double[2*n];
+		for(int k=0;k<n;k++) {
+			circumcenter(t, cell, 2*k);
+			t = neighbour(t, (indexOf(t, v)+1)%3);
+		}
+		return cell;
+	}
+
+	/**
+	 * True if other, a view of the same mesh, holds the very page of
+	 * triangle slots that t is on, so none of them changed between the two
+	 */
+	boolean sharesTriangles(MeshView other, int t) {
+		int c = t >>> 2*SHIFT, p = t >>> SHIFT & MASK;
+		return other != null && other.source == source && c < other.tv.length
+			&& other.tv[c][p] != null && other.tv[c][p] == tv[c][p];
+	}
+
+	MeshView above() {
+		return above;
+	}
+
+	private int down(int u) {
+		return down[u >>> 2*SHIFT][u >>> SHIFT & MASK][u & MASK];
+	}
+
+	private double distance(int v, double x, double y) {
+		double dx = x(v)-x, dy = y(v)-y;
+		return dx*dx + dy*dy;
+	}
+
+}
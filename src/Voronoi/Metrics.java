@@ -0,0 +1,224 @@
+package Voronoi;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters of what the engine does: insertions, point location walks,
+ * cavities, predicate calls and repaints.
+ *
+ * Off unless the JVM is started with -Dvoronoi.metrics=true. Every hook is
+ * a test of the static final field on before anything else, which the JIT
+ * folds, so while it is off the hooks are compiled out of the predicates
+ * and walks altogether. The counters are read through the MBean, which
+ * register() makes visible to JMX consoles. When the JVM has Flight
+ * Recorder, insertions and repaints are also JFR events, and totals are
+ * sent as a periodic one (see FlightEvents, under jfr/).
+ *
+ * @author sohit
+ *
+ */
+public final class Metrics implements MetricsMBean {
+
+	public static final String NAME = "Voronoi:type=Metrics";
+	private static final int BUCKETS = 33;
+
+	static final boolean on = Boolean.getBoolean("voronoi.metrics");
+	private static final Recorder flight = flightRecorder();
+
+	private static final LongAdder inserts = new LongAdder();
+	private static final LongAdder walks = new LongAdder();
+	private static final LongAdder fullScans = new LongAdder();
+	private static final LongAdder orients = new LongAdder();
+	private static final LongAdder incircles = new LongAdder();
+	private static final LongAdder exact = new LongAdder();
+	private static final LongAdder frames = new LongAdder();
+	private static final LongAdder paintNanos = new LongAdder();
+	private static final AtomicLongArray walkLengths = new AtomicLongArray(BUCKETS);
+	private static final AtomicLongArray cavitySizes = new AtomicLongArray(BUCKETS);
+	private static final AtomicLongArray paintMicros = new AtomicLongArray(BUCKETS);
+
+	private static final Metrics instance = new Metrics();
+	private static boolean registered = false;
+
+	private long lastInserts = 0;
+	private long lastRead = System.nanoTime();
+
+	private Metrics() {}
+
+	/**
+	 * Where insertions and repaints also go when there is a Flight
+	 * Recorder: FlightEvents, which is compiled apart
+	 */
+	interface Recorder {
+		void register();
+		void insert(long nanos, int cavity);
+		void paint(long nanos);
+	}
+
+	/**
+	 * Registers the MBean with the platform server, once, and the periodic
+	 * JFR event if there is a Flight Recorder
+	 */
+	public static synchronized void register() {
+		if(registered) return;
+		registered = true;
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(NAME));
+		} catch(JMException e) {
+			throw new IllegalStateException("Cannot register "+NAME, e);
+		}
+		if(flight != null) flight.register();
+	}
+
+	public static Metrics get() {
+		return instance;
+	}
+
+	static void insert(long nanos, int cavity) {
+		inserts.increment();
+		cavitySizes.incrementAndGet(bucket(cavity));
+		if(flight != null) flight.insert(nanos, cavity);
+	}
+
+	static void walk(long steps) {
+		walks.increment();
+		walkLengths.incrementAndGet(bucket(steps));
+	}
+
+	static void fullScan() {
+		fullScans.increment();
+	}
+
+	static void orient() {
+		orients.increment();
+	}
+
+	static void incircle() {
+		incircles.increment();
+	}
+
+	static void exact() {
+		exact.increment();
+	}
+
+	static void paint(long nanos) {
+		frames.increment();
+		paintNanos.add(nanos);
+		paintMicros.incrementAndGet(bucket(nanos/1000));
+		if(flight != null) flight.paint(nanos);
+	}
+
+	private static int bucket(long value) {
+		return value <= 0 ? 0 : Math.min(BUCKETS-1, 64-Long.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * FlightEvents, if the JVM has a Flight Recorder and the jar was built
+	 * with it, or null
+	 */
+	private static Recorder flightRecorder() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (Recorder)Class.forName("Voronoi.FlightEvents").getDeclaredConstructor().newInstance();
+		} catch(ReflectiveOperationException e) {
+			return null;
+		} catch(LinkageError e) {
+			return null;
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return on;
+	}
+
+	@Override
+	public long getInserts() {
+		return inserts.sum();
+	}
+
+	@Override
+	public synchronized double getInsertsPerSecond() {
+		long now = System.nanoTime(), count = inserts.sum();
+		double rate = now == lastRead ? 0 : (count-lastInserts)*1e9/(now-lastRead);
+		lastInserts = count;
+		lastRead = now;
+		return rate;
+	}
+
+	@Override
+	public long getWalks() {
+		return walks.sum();
+	}
+
+	@Override
+	public long getFullScans() {
+		return fullScans.sum();
+	}
+
+	@Override
+	public long[] getWalkLengthHistogram() {
+		return toArray(walkLengths);
+	}
+
+	@Override
+	public long[] getCavitySizeHistogram() {
+		return toArray(cavitySizes);
+	}
+
+	@Override
+	public long getOrientCalls() {
+		return orients.sum();
+	}
+
+	@Override
+	public long getIncircleCalls() {
+		return incircles.sum();
+	}
+
+	@Override
+	public long getExactPredicates() {
+		return exact.sum();
+	}
+
+	@Override
+	public long getFrames() {
+		return frames.sum();
+	}
+
+	@Override
+	public double getMeanPaintMillis() {
+		long n = frames.sum();
+		return n == 0 ? 0 : paintNanos.sum()/1e6/n;
+	}
+
+	@Override
+	public long[] getPaintMicrosHistogram() {
+		return toArray(paintMicros);
+	}
+
+	@Override
+	public synchronized void reset() {
+		for(LongAdder a : new LongAdder[] {inserts, walks, fullScans, orients, incircles, exact, frames, paintNanos})
+			a.reset();
+		for(int k=0;k<BUCKETS;k++) {
+			walkLengths.set(k, 0);
+			cavitySizes.set(k, 0);
+			paintMicros.set(k, 0);
+		}
+		lastInserts = 0;
+		lastRead = System.nanoTime();
+	}
+
+	private static long[] toArray(AtomicLongArray buckets) {
+		long[] array = new long[buckets.length()];
+		for(int k=0;k<array.length;k++) array[k] = buckets.get(k);
+		return array;
+	}
+
+}
@@ -0,0 +1,51 @@
+package Voronoi;
+
+/**
+ * Management interface of {@link Metrics}, registered as
+ * Voronoi:type=Metrics. Histograms count values in buckets of powers of
+ * two: bucket 0 holds 0, bucket k holds 2^(k-1) to 2^k-1.
+ *
+ * @author sohit
+ *
+ */
+public interface MetricsMBean {
+
+	/**
+	 * Whether the JVM was started with -Dvoronoi.metrics=true; the
+	 * counters stay at 0 otherwise
+	 */
+	boolean isEnabled();
+
+	long getInserts();
+
+	/**
+	 * Insertions per second since this was last read
+	 */
+	double getInsertsPerSecond();
+
+	long getWalks();
+
+	long getFullScans();
+
+	long[] getWalkLengthHistogram();
+
+	long[] getCavitySizeHistogram();
+
+	long getOrientCalls();
+
+	long getIncircleCalls();
+
+	/**
+	 * Predicate calls the floating point filter could not decide
+	 */
+	long getExactPredicates();
+
+	long getFrames();
+
+	double getMeanPaintMillis();
+
+	long[] getPaintMicrosHistogram();
+
+	void reset();
+
+}
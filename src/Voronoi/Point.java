@@ -54,10 +54,20 @@ public class Point {
 		return true;
 	}
 
+	/**
+	 * By value, consistent with equals: 0.0 and -0.0 hash alike
+	 */
 	@Override
 	public int hashCode() {
 		
-		return super.hashCode();
+		if(coordinates.length == 2) return SiteIndex.hash(coordinates[0], coordinates[1]);
+		
+		int h = 1;
+		for(double c : coordinates) {
+			long bits = Double.doubleToLongBits(c+0.0);
+			h = 31*h + (int)(bits^(bits>>>32));
+		}
+		return h;
 	}
 	
 	public double coord(int i) {
@@ -196,6 +206,11 @@ public class Point {
 	
 	public double content(Point[] simplex) {
 		int len = simplex.length;
+		
+		if(len == 3 && is2D(simplex)) {
+			double[] a = simplex[0].coordinates, b = simplex[1].coordinates, c = simplex[2].coordinates;
+			return orient2d(a[0],a[1],b[0],b[1],c[0],c[1])/6;
+		}
 		Point[] matrix = new Point[len];
 		
 		for(int i=0;i<len;i++) 
@@ -215,6 +230,8 @@ public class Point {
 		if(this.dimension() != dim) 
 			throw new IllegalArgumentException("Invalid simplex");
 		
+		if(dim == 2) return relation2D(simplex);
+		
 		Point[] matrix = new Point[dim+1];
 		
 		double[] coords = new double[dim+2];
@@ -285,6 +302,14 @@ public class Point {
 		
 		int len = simplex.length;
 		
+		if(len == 3 && this.dimension() == 2 && is2D(simplex)) {
+			double[] a = simplex[0].coordinates, b = simplex[1].coordinates, c = simplex[2].coordinates;
+			double det = incircle(a[0],a[1],b[0],b[1],c[0],c[1],coordinates[0],coordinates[1]);
+			int result = det < 0 ? 1 : (det > 0 ? -1 : 0);
+			if(orient2d(a[0],a[1],b[0],b[1],c[0],c[1]) < 0) result*=-1;
+			return result;
+		}
+		
 		Point[] matrix = new Point[len+1];
 		
 		for(int i=0;i<len;i++) {
@@ -325,4 +350,175 @@ public class Point {
 		return new Point(result);
 	}
 	
+	/**
+	 * Twice the signed area of triangle abc: positive if a,b,c are
+	 * counter-clockwise, negative if clockwise and zero if collinear.
+	 * The sign is exact; the magnitude is approximate.
+	 */
+	public static double orient2d(double ax, double ay, double bx, double by, double cx, double cy) {
+		if(Metrics.on) Metrics.orient();
+		
+		double detleft = (ax-cx)*(by-cy);
+		double detright = (ay-cy)*(bx-cx);
+		double det = detleft - detright;
+		
+		double detsum;
+		if(detleft > 0) {
+			if(detright <= 0) return det;
+			detsum = detleft + detright;
+		}
+		else if(detleft < 0) {
+			if(detright >= 0) return det;
+			detsum = -detleft - detright;
+		}
+		else return det;
+		
+		if(Math.abs(det) >= CCW_ERRBOUND*detsum) return det;
+		
+		return orient2dExact(ax,ay,bx,by,cx,cy);
+	}
+	
+	/**
+	 * Positive if d lies inside the circle through a,b,c (taken
+	 * counter-clockwise), negative if outside and zero if on it.
+	 * The sign is exact; the magnitude is approximate.
+	 */
+	public static double incircle(double ax, double ay, double bx, double by,
+			double cx, double cy, double dx, double dy) {
+		if(Metrics.on) Metrics.incircle();
+		
+		double adx = ax-dx, ady = ay-dy;
+		double bdx = bx-dx, bdy = by-dy;
+		double cdx = cx-dx, cdy = cy-dy;
+		
+		double bdxcdy = bdx*cdy, cdxbdy = cdx*bdy;
+		double alift = adx*adx + ady*ady;
+		
+		double cdxady = cdx*ady, adxcdy = adx*cdy;
+		double blift = bdx*bdx + bdy*bdy;
+		
+		double adxbdy = adx*bdy, bdxady = bdx*ady;
+		double clift = cdx*cdx + cdy*cdy;
+		
+		double det = alift*(bdxcdy-cdxbdy) + blift*(cdxady-adxcdy) + clift*(adxbdy-bdxady);
+		
+		double permanent = (Math.abs(bdxcdy)+Math.abs(cdxbdy))*alift
+				+ (Math.abs(cdxady)+Math.abs(adxcdy))*blift
+				+ (Math.abs(adxbdy)+Math.abs(bdxady))*clift;
+		
+		if(Math.abs(det) > ICC_ERRBOUND*permanent) return det;
+		
+		return incircleExact(ax,ay,bx,by,cx,cy,dx,dy);
+	}
+	
+	/**
+	 * Sign of incircle(a,b,c,d) for a,b,c counter-clockwise, zero only
+	 * when d is one of a,b,c. Cocircular points are perturbed by lifting
+	 * each one off the paraboloid by an amount that grows with its
+	 * lexicographic (x,y) rank, which only moves the lift and so leaves
+	 * every orientation as it is. The two largest points then decide
+	 * (Devillers and Teillaud, Perturbations for Delaunay and weighted
+	 * Delaunay 3D triangulations).
+	 */
+	public static int perturbedIncircle(double ax, double ay, double bx, double by,
+			double cx, double cy, double dx, double dy) {
+		double det = incircle(ax,ay,bx,by,cx,cy,dx,dy);
+		if(det != 0) return det > 0 ? 1 : -1;
+		if((dx == ax && dy == ay) || (dx == bx && dy == by) || (dx == cx && dy == cy)) return 0;
+
+		int done = 0;
+		for(int round=0;round<2;round++) {
+			int top = -1;
+			double tx = 0, ty = 0;
+			for(int k=0;k<4;k++) {
+				if((done & 1 << k) != 0) continue;
+				double px = k == 0 ? ax : k == 1 ? bx : k == 2 ? cx : dx;
+				double py = k == 0 ? ay : k == 1 ? by : k == 2 ? cy : dy;
+				if(top < 0 || px > tx || (px == tx && py > ty)) {
+					top = k;
+					tx = px;
+					ty = py;
+				}
+			}
+			done |= 1 << top;
+
+			//the largest point is lifted most: d goes outside, a vertex of
+			//the circle takes d in when d would replace it positively
+			double o;
+			if(top == 3) return -1;
+			else if(top == 2) o = orient2d(ax,ay,bx,by,dx,dy);
+			else if(top == 1) o = orient2d(ax,ay,dx,dy,cx,cy);
+			else o = orient2d(dx,dy,bx,by,cx,cy);
+			if(o != 0) return o > 0 ? 1 : -1;
+		}
+		return -1;
+	}
+	
+	private static final double CCW_ERRBOUND = (3.0 + 16.0*Expansion.EPSILON)*Expansion.EPSILON;
+	private static final double ICC_ERRBOUND = (10.0 + 96.0*Expansion.EPSILON)*Expansion.EPSILON;
+	
+	private static double orient2dExact(double ax, double ay, double bx, double by, double cx, double cy) {
+		if(Metrics.on) Metrics.exact();
+		double[] acx = Expansion.diff(ax, cx), acy = Expansion.diff(ay, cy);
+		double[] bcx = Expansion.diff(bx, cx), bcy = Expansion.diff(by, cy);
+		double[] det = Expansion.sum(Expansion.multiply(acx, bcy),
+				Expansion.negate(Expansion.multiply(acy, bcx)));
+		return det[det.length-1];
+	}
+	
+	private static double incircleExact(double ax, double ay, double bx, double by,
+			double cx, double cy, double dx, double dy) {
+		if(Metrics.on) Metrics.exact();
+		double[] adx = Expansion.diff(ax, dx), ady = Expansion.diff(ay, dy);
+		double[] bdx = Expansion.diff(bx, dx), bdy = Expansion.diff(by, dy);
+		double[] cdx = Expansion.diff(cx, dx), cdy = Expansion.diff(cy, dy);
+		
+		double[] alift = Expansion.sum(Expansion.multiply(adx, adx), Expansion.multiply(ady, ady));
+		double[] blift = Expansion.sum(Expansion.multiply(bdx, bdx), Expansion.multiply(bdy, bdy));
+		double[] clift = Expansion.sum(Expansion.multiply(cdx, cdx), Expansion.multiply(cdy, cdy));
+		
+		double[] bc = Expansion.sum(Expansion.multiply(bdx, cdy), Expansion.negate(Expansion.multiply(cdx, bdy)));
+		double[] ca = Expansion.sum(Expansion.multiply(cdx, ady), Expansion.negate(Expansion.multiply(adx, cdy)));
+		double[] ab = Expansion.sum(Expansion.multiply(adx, bdy), Expansion.negate(Expansion.multiply(bdx, ady)));
+		
+		double[] det = Expansion.sum(Expansion.sum(Expansion.multiply(alift, bc),
+				Expansion.multiply(blift, ca)), Expansion.multiply(clift, ab));
+		return det[det.length-1];
+	}
+	
+	private static boolean is2D(Point[] simplex) {
+		for(Point p : simplex) 
+			if(p.coordinates.length != 2) return false;
+		return true;
+	}
+	
+	private int[] relation2D(Point[] simplex) {
+		
+		double px = coordinates[0], py = coordinates[1];
+		double[] a = simplex[0].coordinates, b = simplex[1].coordinates, c = simplex[2].coordinates;
+		
+		double content = det2D(a[0],a[1],b[0],b[1],c[0],c[1]);
+		
+		return new int[] {
+			relationSign(-det2D(px,py,b[0],b[1],c[0],c[1]), content),
+			relationSign(-det2D(a[0],a[1],px,py,c[0],c[1]), content),
+			relationSign(-det2D(a[0],a[1],b[0],b[1],px,py), content)
+		};
+	}
+	
+	private static int relationSign(double value, double content) {
+		int result;
+		if(Math.abs(value) <= 1.0e-6*Math.abs(content)) result = 0;
+		else if(value < 0) result = -1;
+		else result = 1;
+		
+		if(content < 0) return -result;
+		if(content == 0) return Math.abs(result);
+		return result;
+	}
+	
+	private static double det2D(double ax, double ay, double bx, double by, double cx, double cy) {
+		return (bx-ax)*(cy-ay) - (by-ay)*(cx-ax);
+	}
+	
 }
@@ -0,0 +1,467 @@
+package Voronoi;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The Delaunay graph on the sites of a Triangulation, as compressed sparse
+ * rows: the neighbours of node i are targets[offsets[i]..offsets[i+1]),
+ * counter-clockwise around it, and lengths holds the length of each of
+ * those edges if asked for. Every edge is stored once from each end.
+ *
+ * Nodes are the live sites numbered 0..size()-1 in vertex order; vertex(i)
+ * gives the vertex number {@link VoronoiDiagram#site(int)} and
+ * {@link Triangulation#nearestSites} use. The vertices of the initial
+ * triangle and their edges are left out.
+ *
+ * Degrees and then rows are filled in parallel runs of nodes, each going
+ * around the triangles of its sites. The triangulation must not change
+ * meanwhile.
+ *
+ * The minimum spanning tree, Gabriel graph and relative neighbourhood
+ * graph of the sites are subgraphs of this one and are taken from it by
+ * {@link Triangulation#euclideanMST()} and its neighbours, with the same
+ * nodes.
+ *
+ * A corner of the initial triangle close to the sites, as after it grows,
+ * can lie in the circle of some hull edges, which the mesh then lacks. The
+ * graph is then taken from a copy of the mesh with those edges put back,
+ * see {@link Mesh#closedHull()}.
+ *
+ * @author sohit
+ *
+ */
+public final class SiteGraph {
+
+	private static final int RUN = 1 << 12;			// nodes gone through one after another on a thread
+
+	private final Mesh mesh;
+	private final int[] vertices;
+	private final Point[] sites;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] lengths;
+	private final double[] xy;
+	private final int[] node;						// node of each vertex, -1 if none
+
+	public SiteGraph(Triangulation dt) {
+		this(dt, false);
+	}
+
+	public SiteGraph(Triangulation dt, boolean lengths) {
+		this(dt, lengths, ForkJoinPool.commonPool());
+	}
+
+	public SiteGraph(Triangulation dt, boolean lengths, ForkJoinPool pool) {
+		mesh = dt.mesh().closedHull();
+
+		int count = mesh.vertexCount();
+		node = new int[count];
+		int n = 0;
+		for(int v=0;v<count;v++)
+			node[v] = v >= 3 && mesh.triangleOf(v) != Mesh.NONE ? n++ : -1;
+		vertices = new int[n];
+		sites = new Point[n];
+		xy = new double[2*n];
+		for(int v=3;v<count;v++) {
+			if(node[v] < 0) continue;
+			vertices[node[v]] = v;
+			sites[node[v]] = mesh.point(v);
+			xy[2*node[v]] = mesh.x(v);
+			xy[2*node[v]+1] = mesh.y(v);
+		}
+
+		offsets = new int[n+1];
+		pool.invoke(new Rows(0, n, false));
+		int sum = 0;
+		for(int i=0;i<n;i++) {
+			int degree = offsets[i];
+			offsets[i] = sum;
+			sum += degree;
+		}
+		offsets[n] = sum;
+
+		targets = new int[sum];
+		this.lengths = lengths ? new double[sum] : null;
+		pool.invoke(new Rows(0, n, true));
+	}
+
+	/**
+	 * The edges of graph marked in keep, which marks each from both ends
+	 */
+	private SiteGraph(SiteGraph graph, boolean[] keep) {
+		mesh = graph.mesh;
+		vertices = graph.vertices;
+		sites = graph.sites;
+		xy = graph.xy;
+		node = graph.node;
+
+		int n = vertices.length, sum = 0;
+		offsets = new int[n+1];
+		for(int i=0;i<n;i++) {
+			offsets[i] = sum;
+			for(int k=graph.offsets[i];k<graph.offsets[i+1];k++)
+				if(keep[k]) sum++;
+		}
+		offsets[n] = sum;
+
+		targets = new int[sum];
+		lengths = graph.lengths == null ? null : new double[sum];
+		for(int k=0,j=0;k<keep.length;k++) {
+			if(!keep[k]) continue;
+			targets[j] = graph.targets[k];
+			if(lengths != null) lengths[j] = graph.lengths[k];
+			j++;
+		}
+	}
+
+	/**
+	 * Number of nodes
+	 */
+	public int size() {
+		return vertices.length;
+	}
+
+	/**
+	 * Number of undirected edges
+	 */
+	public int edgeCount() {
+		return targets.length/2;
+	}
+
+	public int degree(int i) {
+		return offsets[i+1]-offsets[i];
+	}
+
+	/**
+	 * Start of the row of each node, and its end at size(). The array is
+	 * shared and must not be modified, as are the ones below.
+	 */
+	public int[] offsets() {
+		return offsets;
+	}
+
+	public int[] targets() {
+		return targets;
+	}
+
+	/**
+	 * Length of each edge in targets, or null if not asked for
+	 */
+	public double[] lengths() {
+		return lengths;
+	}
+
+	/**
+	 * Coordinates of the nodes as x0,y0,x1,y1,...
+	 */
+	public double[] coordinates() {
+		return xy;
+	}
+
+	public double x(int i) {
+		return xy[2*i];
+	}
+
+	public double y(int i) {
+		return xy[2*i+1];
+	}
+
+	/**
+	 * Vertex number of node i
+	 */
+	public int vertex(int i) {
+		return vertices[i];
+	}
+
+	/**
+	 * Node of vertex v, or -1 if v is not a site
+	 */
+	public int node(int v) {
+		return v >= 0 && v < node.length ? node[v] : -1;
+	}
+
+	public Point site(int i) {
+		return sites[i];
+	}
+
+	/**
+	 * Minimum spanning tree, by Kruskal over the edges of this Delaunay
+	 * graph. The edges are sorted in parallel as longs holding the top bits
+	 * of their length above their index; runs whose top bits tie are then
+	 * put in order of their exact lengths, so the tree is exact.
+	 */
+	SiteGraph euclideanMST() {
+		int n = size(), m = edgeCount();
+		int bits = 32-Integer.numberOfLeadingZeros(Math.max(m-1, 1));
+		long mask = (1L << bits)-1;
+
+		int[] entry = new int[m], source = new int[m], target = new int[m];
+		long[] keys = new long[m];
+		int e = 0;
+		for(int i=0;i<n;i++)
+			for(int k=offsets[i];k<offsets[i+1];k++) {
+				if(targets[k] < i) continue;
+				entry[e] = k;
+				source[e] = i;
+				target[e] = targets[k];
+				keys[e] = Double.doubleToLongBits(length(i, k)) & ~mask | e;	// lengths are not negative, so their bits sort like them
+				e++;
+			}
+		Arrays.parallelSort(keys);
+		for(int lo=0,hi;lo<m;lo=hi) {
+			hi = lo+1;
+			while(hi < m && (keys[hi] & ~mask) == (keys[lo] & ~mask)) hi++;
+			for(int a=lo+1;a<hi;a++) {
+				long key = keys[a];
+				double length = length(source[(int)(key & mask)], entry[(int)(key & mask)]);
+				int b = a;
+				while(b > lo && length(source[(int)(keys[b-1] & mask)], entry[(int)(keys[b-1] & mask)]) > length) {
+					keys[b] = keys[b-1];
+					b--;
+				}
+				keys[b] = key;
+			}
+		}
+
+		int[] parent = new int[n];					// parent of each node, or minus the size of its tree at a root
+		Arrays.fill(parent, -1);
+		boolean[] keep = new boolean[targets.length];
+		for(int a=0,joined=0;a<m && joined<n-1;a++) {
+			e = (int)(keys[a] & mask);
+			int i = source[e], w = target[e];
+			int r = root(parent, i), s = root(parent, w);
+			if(r == s) continue;
+			if(parent[r] > parent[s]) {
+				int swap = r;
+				r = s;
+				s = swap;
+			}
+			parent[r] += parent[s];
+			parent[s] = r;
+			keep[entry[e]] = keep[reverse(entry[e], i, w)] = true;
+			joined++;
+		}
+		return new SiteGraph(this, keep);
+	}
+
+	/**
+	 * Edges whose circle through both ends, centred between them, has no
+	 * other site inside or on it: those where neither triangle on the edge
+	 * has its third site there. Counting sites on the circle keeps the
+	 * graph within the Delaunay one when four sites are cocircular, as on
+	 * a grid, where either diagonal of a square would do.
+	 */
+	SiteGraph gabrielGraph(ForkJoinPool pool) {
+		boolean[] keep = new boolean[targets.length];
+		pool.invoke(new Proximity(0, size(), keep, false, new ConcurrentLinkedQueue<Lune>()));
+		return new SiteGraph(this, keep);
+	}
+
+	/**
+	 * Gabriel edges whose lune, where the circles about either end through
+	 * the other meet, has no site inside. The sites within such a circle
+	 * are joined to its centre by Delaunay edges inside it, so the lune is
+	 * searched from one end over those.
+	 */
+	SiteGraph relativeNeighborhoodGraph(ForkJoinPool pool) {
+		boolean[] keep = new boolean[targets.length];
+		pool.invoke(new Proximity(0, size(), keep, true, new ConcurrentLinkedQueue<Lune>()));
+		return new SiteGraph(this, keep);
+	}
+
+	private double length(int i, int k) {
+		if(lengths != null) return lengths[k];
+		double dx = xy[2*targets[k]]-xy[2*i], dy = xy[2*targets[k]+1]-xy[2*i+1];
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	/**
+	 * Entry of the edge from w back to i, where k goes from i to w
+	 */
+	private int reverse(int k, int i, int w) {
+		for(int r=offsets[w];r<offsets[w+1];r++)
+			if(targets[r] == i) return r;
+		throw new IllegalStateException("Edge " + k + " has no reverse");
+	}
+
+	/**
+	 * Root of the tree of node i, halving the path to it
+	 */
+	private static int root(int[] parent, int i) {
+		while(parent[i] >= 0) {
+			if(parent[parent[i]] >= 0) parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Marks and stack for searching lunes, one per thread at a time
+	 */
+	private static final class Lune {
+		int[] stamp;
+		int epoch = 0;
+		int[] stack = new int[16];
+	}
+
+	/**
+	 * Marks the Gabriel, or relative neighbourhood, edges of the nodes
+	 */
+	private class Proximity extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo, hi;
+		private final boolean[] keep;
+		private final boolean relative;
+		private final Queue<Lune> spare;
+
+		Proximity(int lo, int hi, boolean[] keep, boolean relative, Queue<Lune> spare) {
+			this.lo = lo;
+			this.hi = hi;
+			this.keep = keep;
+			this.relative = relative;
+			this.spare = spare;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo > RUN) {
+				int mid = (lo+hi) >>> 1;
+				invokeAll(new Proximity(lo, mid, keep, relative, spare), new Proximity(mid, hi, keep, relative, spare));
+				return;
+			}
+			Lune lune = null;
+			if(relative) {
+				lune = spare.poll();
+				if(lune == null) lune = new Lune();
+				if(lune.stamp == null || lune.stamp.length < mesh.vertexCount()) lune.stamp = new int[mesh.vertexCount()];
+			}
+			int[] around = new int[16];
+			for(int i=lo;i<hi;i++) {
+				// vertices around the site in the order its row has them, corners too
+				int v = vertices[i], start = mesh.triangleOf(v), t = start, d = 0;
+				do {
+					int j = mesh.indexOf(t, v);
+					if(d == around.length) around = Arrays.copyOf(around, 2*d);
+					around[d++] = mesh.vertex(t, (j+1)%3);
+					t = mesh.neighbour(t, (j+1)%3);
+				} while(t != start);
+
+				int k = offsets[i];
+				for(int s=0;s<d;s++) {
+					int u = around[s], w = node[u];
+					if(w < 0) continue;
+					boolean gabriel = !diametral(v, u, around[(s+d-1)%d]) && !diametral(v, u, around[(s+1)%d]);
+					if(!relative) keep[k] = gabriel;
+					else if(i < w) keep[k] = keep[reverse(k, i, w)] = gabriel && empty(v, u, lune);
+					k++;
+				}
+			}
+			if(lune != null) spare.add(lune);
+		}
+
+		/**
+		 * Whether site c lies inside or on the circle on a and b as diameter
+		 */
+		private boolean diametral(int a, int b, int c) {
+			if(c < 3) return false;
+			double x = mesh.x(c), y = mesh.y(c);
+			return (mesh.x(a)-x)*(mesh.x(b)-x) + (mesh.y(a)-y)*(mesh.y(b)-y) <= 0;
+		}
+
+		/**
+		 * Whether no site lies closer to both a and b than they are to
+		 * each other. Each site in the circle about a through b has a
+		 * Delaunay neighbour nearer to a, so the search from a keeps to
+		 * that circle.
+		 */
+		private boolean empty(int a, int b, Lune lune) {
+			double ax = mesh.x(a), ay = mesh.y(a), bx = mesh.x(b), by = mesh.y(b);
+			double reach = (bx-ax)*(bx-ax) + (by-ay)*(by-ay);
+			int epoch = ++lune.epoch, top = 0;
+			int[] stamp = lune.stamp, stack = lune.stack;
+			stamp[a] = epoch;
+			stack[top++] = a;
+			while(top > 0) {
+				int p = stack[--top], start = mesh.triangleOf(p), t = start;
+				do {
+					int j = mesh.indexOf(t, p), q = mesh.vertex(t, (j+1)%3);
+					t = mesh.neighbour(t, (j+1)%3);
+					if(q < 3 || stamp[q] == epoch) continue;
+					stamp[q] = epoch;
+					double x = mesh.x(q), y = mesh.y(q);
+					if((x-ax)*(x-ax) + (y-ay)*(y-ay) >= reach) continue;
+					if((x-bx)*(x-bx) + (y-by)*(y-by) < reach) return false;
+					if(top == stack.length) lune.stack = stack = Arrays.copyOf(stack, 2*top);
+					stack[top++] = q;
+				} while(t != start);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Counts the neighbours of the nodes, or writes them out
+	 */
+	private class Rows extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo, hi;
+		private final boolean fill;
+
+		Rows(int lo, int hi, boolean fill) {
+			this.lo = lo;
+			this.hi = hi;
+			this.fill = fill;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo > RUN) {
+				int mid = (lo+hi) >>> 1;
+				invokeAll(new Rows(lo, mid, fill), new Rows(mid, hi, fill));
+				return;
+			}
+			for(int i=lo;i<hi;i++) {
+				if(fill) row(i);
+				else offsets[i] = row(i);
+			}
+		}
+
+		/**
+		 * Goes counter-clockwise around the site of node i, returning its
+		 * degree. Sites lie inside the initial triangle, so the triangles
+		 * around each one close up.
+		 */
+		private int row(int i) {
+			int v = vertices[i], start = mesh.triangleOf(v), t = start;
+			int k = fill ? offsets[i] : 0;
+			do {
+				int j = mesh.indexOf(t, v);
+				k = edge(i, k, mesh.vertex(t, (j+1)%3));
+				t = mesh.neighbour(t, (j+1)%3);
+			} while(t != start);
+			return fill ? k-offsets[i] : k;
+		}
+
+		private int edge(int i, int k, int u) {
+			int w = node[u];
+			if(w < 0) return k;
+			if(fill) {
+				targets[k] = w;
+				if(lengths != null) {
+					double dx = xy[2*w]-xy[2*i], dy = xy[2*w+1]-xy[2*i+1];
+					lengths[k] = Math.sqrt(dx*dx + dy*dy);
+				}
+			}
+			return k+1;
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+package Voronoi;
+
+import java.util.Arrays;
+
+/**
+ * Hash index of the vertices of a Mesh by their coordinates, for finding
+ * a site or rejecting a duplicate without locating it.
+ *
+ * Open addressing with linear probing over a table of vertex numbers;
+ * the coordinates are read from the mesh, so an entry is a single int.
+ * Removal shifts the entries after it back rather than leaving markers.
+ *
+ * @author sohit
+ *
+ */
+class SiteIndex {
+
+	private static final int EMPTY = Mesh.NONE;
+
+	private final Mesh mesh;
+	private int[] table;
+	private int size = 0;
+
+	/**
+	 * Index of every vertex of mesh with a triangle
+	 */
+	SiteIndex(Mesh mesh) {
+		this.mesh = mesh;
+		table = new int[16];
+		Arrays.fill(table, EMPTY);
+		reserve(mesh.vertexCount());
+		for(int v=0;v<mesh.vertexCount();v++)
+			if(mesh.triangleOf(v) != Mesh.NONE) add(v);
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Vertex at (x,y), or NONE
+	 */
+	int find(double x, double y) {
+		int mask = table.length-1;
+		for(int i=hash(x, y) & mask;;i=(i+1) & mask) {
+			int v = table[i];
+			if(v == EMPTY) return Mesh.NONE;
+			if(mesh.x(v) == x && mesh.y(v) == y) return v;
+		}
+	}
+
+	/**
+	 * Adds vertex v, which must not be at the same place as another
+	 */
+	void add(int v) {
+		if(4*(size+1) > 3*table.length) resize(2*table.length);
+		int mask = table.length-1;
+		int i = hash(mesh.x(v), mesh.y(v)) & mask;
+		while(table[i] != EMPTY) i = (i+1) & mask;
+		table[i] = v;
+		size++;
+	}
+
+	/**
+	 * Removes vertex v, before the mesh forgets its coordinates
+	 */
+	void remove(int v) {
+		int mask = table.length-1;
+		int i = hash(mesh.x(v), mesh.y(v)) & mask;
+		while(table[i] != v) {
+			if(table[i] == EMPTY) return;
+			i = (i+1) & mask;
+		}
+
+		//move back the entries of the run after i that may not skip the hole
+		for(int j=(i+1) & mask;table[j] != EMPTY;j=(j+1) & mask) {
+			int u = table[j];
+			int home = hash(mesh.x(u), mesh.y(u)) & mask;
+			if(((j-home) & mask) >= ((j-i) & mask)) {
+				table[i] = u;
+				i = j;
+			}
+		}
+		table[i] = EMPTY;
+		size--;
+	}
+
+	/**
+	 * Grows the table to hold n entries without resizing
+	 */
+	void reserve(int n) {
+		int capacity = table.length;
+		while(3*(long)capacity < 4L*n) capacity *= 2;
+		if(capacity > table.length) resize(capacity);
+	}
+
+	/**
+	 * Hash of the point (x,y), the same for 0.0 and -0.0 since they
+	 * compare equal; also that of a two-dimensional {@link Point}
+	 */
+	static int hash(double x, double y) {
+		long h = Double.doubleToLongBits(x+0.0)*0x9E3779B97F4A7C15L + Double.doubleToLongBits(y+0.0);
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int)h;
+	}
+
+	private void resize(int capacity) {
+		int[] old = table;
+		table = new int[capacity];
+		Arrays.fill(table, EMPTY);
+		int mask = capacity-1;
+		for(int v : old) {
+			if(v == EMPTY) continue;
+			int i = hash(mesh.x(v), mesh.y(v)) & mask;
+			while(table[i] != EMPTY) i = (i+1) & mask;
+			table[i] = v;
+		}
+	}
+
+}
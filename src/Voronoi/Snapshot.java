@@ -0,0 +1,280 @@
+package Voronoi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a Triangulation, for restarting without inserting
+ * every site again.
+ *
+ * The file is little-endian: a header of magic, version and the CRC32 of
+ * everything after it, then the coordinates mode (0 double, 1 integer;
+ * version 2 on), the number of hierarchy levels and for each
+ * level its vertex and triangle counts, the vertex coordinates (base
+ * level) or the vertices below (upper levels), the triangle vertices and
+ * the triangle neighbours. Removed vertices and free triangle slots are
+ * left out and the rest renumbered in order.
+ *
+ * The writer streams through a small buffer. The loader maps the file and
+ * copies the arrays straight into the meshes, running no predicate.
+ *
+ * @author sohit
+ *
+ */
+public class Snapshot {
+
+	public static final int MAGIC = 0x504E5356;	// "VSNP"
+	public static final int VERSION = 2;
+
+	private static final int HEADER = 16;			// magic, version, checksum
+	private static final int BUFFER = 1 << 16;
+	private static final long WINDOW = 1 << 30;		// largest region mapped at once
+
+	private Snapshot() {}
+
+	public static void write(Triangulation dt, File file) throws IOException {
+
+		Hierarchy hierarchy = dt.hierarchy();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			Writer out = new Writer(raf.getChannel());
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putLong(0);
+			out.startChecksum();
+
+			out.putInt(dt.getCoordinates().ordinal());
+			out.putInt(hierarchy.levels());
+			int[] below = null;
+			for(int k=0;k<hierarchy.levels();k++) {
+				Mesh mesh = hierarchy.level(k);
+
+				//new numbers of the live vertices and triangles
+				int[] vertices = new int[mesh.vertexCount()];
+				int n = 0;
+				for(int v=0;v<mesh.vertexCount();v++)
+					vertices[v] = mesh.triangleOf(v) == Mesh.NONE ? Mesh.NONE : n++;
+				int[] triangles = new int[mesh.triangleCount()];
+				int m = 0;
+				for(int t=0;t<mesh.triangleCount();t++)
+					triangles[t] = mesh.isLive(t) ? m++ : Mesh.NONE;
+
+				out.putInt(n);
+				out.putInt(m);
+				for(int v=0;v<mesh.vertexCount();v++) {
+					if(vertices[v] == Mesh.NONE) continue;
+					if(k == 0) {
+						out.putDouble(mesh.x(v));
+						out.putDouble(mesh.y(v));
+					}
+					else out.putInt(below[hierarchy.down(k, v)]);
+				}
+				for(int t=0;t<mesh.triangleCount();t++)
+					if(triangles[t] != Mesh.NONE)
+						for(int i=0;i<3;i++) out.putInt(vertices[mesh.vertex(t, i)]);
+				for(int t=0;t<mesh.triangleCount();t++)
+					if(triangles[t] != Mesh.NONE)
+						for(int i=0;i<3;i++) {
+							int nb = mesh.neighbour(t, i);
+							out.putInt(nb == Mesh.NONE ? Mesh.NONE : triangles[nb]);
+						}
+				below = vertices;
+			}
+			out.finish(HEADER-8);
+		} finally {
+			raf.close();
+		}
+	}
+
+	public static Triangulation read(File file) throws IOException {
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if(size < HEADER+4) throw new IOException("Not a snapshot: "+file);
+
+			ByteBuffer header = map(channel, 0, HEADER);
+			if(header.getInt() != MAGIC) throw new IOException("Not a snapshot: "+file);
+			int version = header.getInt();
+			if(version < 1 || version > VERSION) throw new IOException("Unsupported snapshot version "+version);
+			long checksum = header.getLong();
+
+			CRC32 crc = new CRC32();
+			for(long pos=HEADER;pos<size;pos+=WINDOW)
+				crc.update(map(channel, pos, Math.min(WINDOW, size-pos)));
+			if(crc.getValue() != checksum) throw new IOException("Snapshot checksum mismatch: "+file);
+
+			Reader in = new Reader(channel, HEADER);
+			Triangulation.Coordinates coordinates = Triangulation.Coordinates.DOUBLE;
+			if(version >= 2) {
+				int mode = in.getInt();
+				if(mode < 0 || mode >= Triangulation.Coordinates.values().length)
+					throw new IOException("Corrupt snapshot: coordinates "+mode);
+				coordinates = Triangulation.Coordinates.values()[mode];
+			}
+			int levels = in.getInt();
+			if(levels < 1 || levels > Hierarchy.MAX_LEVELS)
+				throw new IOException("Corrupt snapshot: "+levels+" levels");
+
+			Mesh[] meshes = new Mesh[levels];
+			int[][] down = new int[levels][];
+			double[] xy = null;
+			for(int k=0;k<levels;k++) {
+				int n = in.getInt(), m = in.getInt();
+				if(n < 3 || m < 1) throw new IOException("Corrupt snapshot: level "+k+" is empty");
+
+				double[] coords = new double[2*Math.max(n, 16)];
+				if(k == 0) in.getDoubles(coords, 2*n);
+				else {
+					down[k] = new int[n];
+					in.getInts(down[k], n);
+					for(int u=0;u<n;u++) {
+						int v = down[k][u];
+						if(v < 0 || v >= meshes[k-1].vertexCount())
+							throw new IOException("Corrupt snapshot: level "+k+" links to vertex "+v);
+						coords[2*u] = xy[2*v];
+						coords[2*u+1] = xy[2*v+1];
+					}
+				}
+				int[] tv = new int[3*m], tn = new int[3*m];
+				in.getInts(tv, 3*m);
+				in.getInts(tn, 3*m);
+				for(int i=0;i<3*m;i++)
+					if(tv[i] < 0 || tv[i] >= n || tn[i] < Mesh.NONE || tn[i] >= m)
+						throw new IOException("Corrupt snapshot: level "+k+" triangle "+i/3);
+
+				meshes[k] = new Mesh(coords, n, tv, tn, m);
+				xy = coords;
+			}
+			if(in.position() != size) throw new IOException("Corrupt snapshot: trailing bytes");
+
+			Mesh base = meshes[0];
+			Triangle initial = new Triangle(base.point(0), base.point(1), base.point(2));
+			Triangulation dt = new Triangulation(initial, new Hierarchy(meshes, down));
+			try {
+				dt.setCoordinates(coordinates);
+			} catch(IllegalArgumentException e) {
+				throw new IOException("Corrupt snapshot: "+e.getMessage());
+			}
+			return dt;
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	/**
+	 * Fills a buffer, passing it through the checksum as it is flushed,
+	 * and finally writes the checksum into the header
+	 */
+	private static class Writer {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+		private CRC32 crc = null;
+
+		Writer(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		void putInt(int value) throws IOException {
+			if(buffer.remaining() < 4) flush();
+			buffer.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			if(buffer.remaining() < 8) flush();
+			buffer.putLong(value);
+		}
+
+		void putDouble(double value) throws IOException {
+			if(buffer.remaining() < 8) flush();
+			buffer.putDouble(value);
+		}
+
+		void startChecksum() throws IOException {
+			flush();
+			crc = new CRC32();
+		}
+
+		void finish(int checksumAt) throws IOException {
+			flush();
+			ByteBuffer value = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			value.putLong(0, crc.getValue());
+			channel.write(value, checksumAt);
+			channel.force(false);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			if(crc != null) {
+				crc.update(buffer);
+				buffer.rewind();
+			}
+			while(buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Reads the arrays of a mapped file in windows of at most WINDOW bytes
+	 */
+	private static class Reader {
+
+		private final FileChannel channel;
+		private long position;
+
+		Reader(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		long position() {
+			return position;
+		}
+
+		int getInt() throws IOException {
+			int[] value = new int[1];
+			getInts(value, 1);
+			return value[0];
+		}
+
+		void getInts(int[] dst, int count) throws IOException {
+			for(int done=0;done<count;) {
+				int n = (int)Math.min(count-done, WINDOW/4);
+				window(4L*n).asIntBuffer().get(dst, done, n);
+				done += n;
+			}
+		}
+
+		void getDoubles(double[] dst, int count) throws IOException {
+			for(int done=0;done<count;) {
+				int n = (int)Math.min(count-done, WINDOW/8);
+				window(8L*n).asDoubleBuffer().get(dst, done, n);
+				done += n;
+			}
+		}
+
+		private ByteBuffer window(long bytes) throws IOException {
+			if(position+bytes > channel.size())
+				throw new IOException("Corrupt snapshot: truncated");
+			ByteBuffer buffer = map(channel, position, bytes);
+			position += bytes;
+			return buffer;
+		}
+	}
+
+}
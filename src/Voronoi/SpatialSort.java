@@ -0,0 +1,147 @@
+package Voronoi;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Insertion orders that keep consecutive points close together.
+ *
+ * brio gives a Biased Randomized Insertion Order (Amenta, Choi, Rote):
+ * the points are shuffled and split into rounds of doubling size, and
+ * every round is sorted along a Hilbert curve. Walks between consecutive
+ * insertions stay short while the randomness keeps cavities small.
+ *
+ * @author sohit
+ *
+ */
+public class SpatialSort {
+
+	private static final int ORDER = 15;		// Hilbert grid is 2^15 x 2^15
+	private static final int SMALL_ROUND = 64;	// rounds below this are not split further
+	private static final int CELL = 16;			// points per grid cell aimed at by hilbertCells
+
+	private SpatialSort() {}
+
+	/**
+	 * BRIO order of the n points whose coordinates are interleaved in xy
+	 */
+	public static int[] brio(double[] xy, int n, Random random) {
+		int[] order = new int[n];
+		for(int i=0;i<n;i++) order[i] = i;
+
+		for(int i=n-1;i>0;i--) {
+			int j = random.nextInt(i+1);
+			int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+
+		double[] box = bounds(xy, n);
+		int hi = n;
+		while(hi > 0) {
+			int lo = hi <= SMALL_ROUND ? 0 : hi/2;
+			hilbertSort(xy, box, order, lo, hi);
+			hi = lo;
+		}
+		return order;
+	}
+
+	/**
+	 * Sorts all n points along a Hilbert curve over their bounding box
+	 */
+	public static int[] hilbert(double[] xy, int n) {
+		int[] order = new int[n];
+		for(int i=0;i<n;i++) order[i] = i;
+		hilbertSort(xy, bounds(xy, n), order, 0, n);
+		return order;
+	}
+
+	/**
+	 * Orders the n points along a Hilbert curve over a grid of about
+	 * n/CELL cells, by counting in linear time. Points sharing a cell keep
+	 * their input order, which is close enough for walks between them.
+	 */
+	public static int[] hilbertCells(double[] xy, int n) {
+		int order = 1;
+		while(order < ORDER && (1L << 2*order) < n/CELL) order++;
+
+		double[] box = bounds(xy, n);
+		int[] cell = new int[n];
+		int[] start = new int[(1 << 2*order)+1];
+		for(int i=0;i<n;i++) {
+			cell[i] = (int)hilbertIndex(xy[2*i], xy[2*i+1], box, order);
+			start[cell[i]+1]++;
+		}
+		for(int c=1;c<start.length;c++) start[c] += start[c-1];
+
+		int[] sorted = new int[n];
+		for(int i=0;i<n;i++) sorted[start[cell[i]]++] = i;
+		return sorted;
+	}
+
+	/**
+	 * Sorts order[lo,hi) by the Hilbert index of the points they refer to
+	 */
+	static void hilbertSort(double[] xy, double[] box, int[] order, int lo, int hi) {
+		int n = hi-lo;
+		long[] keys = new long[n];
+		for(int i=0;i<n;i++) {
+			int p = order[lo+i];
+			keys[i] = (hilbertIndex(xy[2*p], xy[2*p+1], box) << 32) | i;
+		}
+		Arrays.sort(keys);
+
+		int[] sorted = new int[n];
+		for(int i=0;i<n;i++) sorted[i] = order[lo+(int)keys[i]];
+		System.arraycopy(sorted, 0, order, lo, n);
+	}
+
+	/**
+	 * Index of (x,y) along a Hilbert curve filling the box {minX,minY,maxX,maxY}
+	 */
+	static long hilbertIndex(double x, double y, double[] box) {
+		return hilbertIndex(x, y, box, ORDER);
+	}
+
+	private static long hilbertIndex(double x, double y, double[] box, int order) {
+		int side = 1 << order;
+		int hx = cell(x, box[0], box[2], side);
+		int hy = cell(y, box[1], box[3], side);
+
+		long d = 0;
+		for(int s=side/2;s>0;s/=2) {
+			int rx = (hx & s) > 0 ? 1 : 0;
+			int ry = (hy & s) > 0 ? 1 : 0;
+			d += (long)s*s*((3*rx)^ry);
+			if(ry == 0) {
+				if(rx == 1) {
+					hx = side-1-hx;
+					hy = side-1-hy;
+				}
+				int tmp = hx;
+				hx = hy;
+				hy = tmp;
+			}
+		}
+		return d;
+	}
+
+	static double[] bounds(double[] xy, int n) {
+		double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for(int i=0;i<n;i++) {
+			box[0] = Math.min(box[0], xy[2*i]);
+			box[1] = Math.min(box[1], xy[2*i+1]);
+			box[2] = Math.max(box[2], xy[2*i]);
+			box[3] = Math.max(box[3], xy[2*i+1]);
+		}
+		return box;
+	}
+
+	private static int cell(double value, double min, double max, int side) {
+		if(max <= min) return 0;
+		int c = (int)((value-min)/(max-min)*side);
+		return Math.max(0, Math.min(side-1, c));
+	}
+
+}
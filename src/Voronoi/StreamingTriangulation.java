@@ -0,0 +1,256 @@
+package Voronoi;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Delaunay triangulation of a stream of points sorted by x, holding only
+ * the triangles that can still change.
+ *
+ * Points are read in chunks, each a slab of the plane, and a chunk is
+ * inserted in BRIO order. All points still to come lie right of the last
+ * one read, the sweep line. A triangle whose circumcircle lies wholly
+ * left of the sweep line can never be in a cavity again, so it is final:
+ * after each chunk it goes to the sink and its slot, and those of vertices
+ * left without triangles, are reused. Memory follows the front of active
+ * triangles rather than the number of points (after Isenburg et al.,
+ * streaming Delaunay, with the sort order standing in for finalization
+ * tags).
+ *
+ * Triangles touching the initial triangle are never emitted. They are
+ * held to the end, when the hull edges a corner hides are put back the
+ * way {@link Mesh#closedHull()} does, so the triangles emitted cover the
+ * convex hull of the points.
+ *
+ * @author sohit
+ *
+ */
+public class StreamingTriangulation {
+
+	public static final int CHUNK = 1 << 14;	// points read between finalizations
+
+	/**
+	 * Receives the final triangles, counter-clockwise
+	 */
+	public interface Sink {
+		void triangle(double ax, double ay, double bx, double by, double cx, double cy) throws IOException;
+	}
+
+	private final Mesh mesh = new Mesh();
+	private final Sink sink;
+	private final int chunk;
+	private int mostRecent;
+	private int lastVertex = Mesh.NONE;		// last vertex placed from the current chunk
+	private double[] xy;						// the chunk read so far
+	private Random random = new Random(CHUNK);
+	private double sweep = Double.NEGATIVE_INFINITY;
+	private int pending = 0;
+
+	private int[] degree = new int[16];		// live triangles around each vertex
+	private double[] reach = new double[16];	// right end of the circle of each triangle slot
+
+	private long points = 0;
+	private long emitted = 0;
+	private int maxActive = 0;
+	private double[] center = new double[2];
+
+	public StreamingTriangulation(Triangle initial, Sink sink) {
+		this(initial, sink, CHUNK);
+	}
+
+	public StreamingTriangulation(Triangle initial, Sink sink, int chunk) {
+		this.sink = sink;
+		this.chunk = chunk;
+		this.xy = new double[2*chunk];
+		for(Point p : initial) {
+			if(p.dimension() != 2)
+				throw new IllegalArgumentException("Point must be two-dimensional");
+			mesh.addVertex(p.coord(0), p.coord(1), p);
+		}
+		mostRecent = mesh.addTriangle(0, 1, 2);
+	}
+
+	/**
+	 * Adds the next point, whose x may not be below that of the last one
+	 */
+	public void add(double x, double y) throws IOException {
+		Triangulation.checkFinite(x, y);
+		if(x < sweep)
+			throw new IllegalArgumentException("Points must come sorted by x: "+x+" after "+sweep);
+		sweep = x;
+		points++;
+
+		xy[2*pending] = x;
+		xy[2*pending+1] = y;
+		if(++pending == chunk) flush();
+	}
+
+	/**
+	 * Emits every triangle left, ending the stream
+	 */
+	public void finish() throws IOException {
+		flush();
+
+		//put back the hull edges a corner hides, see Mesh.closedHull(),
+		//then count the triangles of each vertex again after the flips
+		mesh.relinkVertices();
+		mesh.closeHull();
+		Arrays.fill(degree, 0);
+		for(int t=0;t<mesh.triangleCount();t++)
+			if(mesh.isLive(t))
+				for(int i=0;i<3;i++) degree[mesh.vertex(t, i)]++;
+
+		for(int t=0;t<mesh.triangleCount();t++)
+			if(mesh.isLive(t)) emit(t);
+	}
+
+	public long points() {
+		return points;
+	}
+
+	public long emitted() {
+		return emitted;
+	}
+
+	public int activeTriangles() {
+		return mesh.size();
+	}
+
+	/**
+	 * Largest number of triangles held at once
+	 */
+	public int maxActiveTriangles() {
+		return maxActive;
+	}
+
+	/**
+	 * Inserts the chunk read, a slab of the plane, in BRIO order and emits
+	 * what no later point can reach
+	 */
+	private void flush() throws IOException {
+		lastVertex = Mesh.NONE;
+		for(int i : SpatialSort.brio(xy, pending, random)) place(xy[2*i], xy[2*i+1]);
+		pending = 0;
+		finalizeBefore(sweep);
+	}
+
+	private void place(double x, double y) {
+
+		//walk from the last point placed, or along the segment from it
+		//when the walk runs into the emitted part
+		int t = mesh.locate(x, y, mostRecent);
+		if(t == Mesh.NONE && lastVertex != Mesh.NONE) t = segmentWalk(lastVertex, x, y);
+		if(t == Mesh.NONE) t = scan(x, y);
+		if(t == Mesh.NONE)
+			throw new IllegalArgumentException("No containing triangle");
+		if(mesh.vertexAt(t, x, y) != Mesh.NONE) return ;
+
+		mesh.findCavity(x, y, t);
+		for(int k=0;k<mesh.cavitySize;k++)
+			for(int i=0;i<3;i++) degree[mesh.vertex(mesh.cavity[k], i)]--;
+
+		int v = mesh.addVertex(x, y, null);
+		if(v >= degree.length) degree = Arrays.copyOf(degree, 2*v);
+		degree[v] = 0;
+		mostRecent = mesh.retriangulate(v);
+		lastVertex = v;
+
+		for(int k=0;k<mesh.createdSize;k++) created(mesh.created[k]);
+		maxActive = Math.max(maxActive, mesh.size());
+	}
+
+	private void created(int t) {
+		if(t >= reach.length) reach = Arrays.copyOf(reach, Math.max(2*reach.length, t+1));
+
+		for(int i=0;i<3;i++) degree[mesh.vertex(t, i)]++;
+		if(mesh.isHull(t)) {
+			reach[t] = Double.POSITIVE_INFINITY;
+			return;
+		}
+
+		//padded against rounding
+		mesh.circumcenter(t, center, 0);
+		int a = mesh.vertex(t, 0);
+		double dx = mesh.x(a)-center[0], dy = mesh.y(a)-center[1];
+		double r = Math.sqrt(dx*dx + dy*dy);
+		reach[t] = center[0] + r + 1e-9*(Math.abs(center[0]) + r);
+	}
+
+	/**
+	 * Emits the triangles whose circle lies left of x. Once per chunk,
+	 * so looking at every triangle costs about the front per chunk.
+	 */
+	private void finalizeBefore(double x) throws IOException {
+		for(int t=0;t<mesh.triangleCount();t++)
+			if(mesh.isLive(t) && reach[t] < x) emit(t);
+	}
+
+	private void emit(int t) throws IOException {
+		int a = mesh.vertex(t, 0), b = mesh.vertex(t, 1), c = mesh.vertex(t, 2);
+		if(!mesh.isHull(t)) {
+			sink.triangle(mesh.x(a), mesh.y(a), mesh.x(b), mesh.y(b), mesh.x(c), mesh.y(c));
+			emitted++;
+		}
+		mesh.deleteTriangle(t);
+		if(--degree[a] == 0 && a >= 3) mesh.freeVertex(a);
+		if(--degree[b] == 0 && b >= 3) mesh.freeVertex(b);
+		if(--degree[c] == 0 && c >= 3) mesh.freeVertex(c);
+	}
+
+	/**
+	 * Walks from vertex p straight to (x,y). Both lie in the current chunk,
+	 * so the segment stays right of every emitted triangle.
+	 */
+	private int segmentWalk(int p, double x, double y) {
+
+		int t = mesh.triangleOf(p);
+		for(int steps=0;steps<=mesh.size();) {
+
+			//the triangle around p whose wedge holds (x,y)
+			int i = mesh.indexOf(t, p), start = t;
+			while(mesh.orient(p, mesh.vertex(t, (i+1)%3), x, y) < 0
+					|| mesh.orient(p, mesh.vertex(t, (i+2)%3), x, y) > 0) {
+				t = mesh.neighbour(t, (i+1)%3);
+				if(t == Mesh.NONE || t == start || steps++ > mesh.size()) return Mesh.NONE;
+				i = mesh.indexOf(t, p);
+			}
+			if(mesh.contains(t, x, y)) return t;
+
+			//then cross the edges the segment cuts, right and left of it
+			int right = mesh.vertex(t, (i+1)%3), left = mesh.vertex(t, (i+2)%3);
+			int n = mesh.neighbour(t, i);
+			while(true) {
+				if(n == Mesh.NONE || steps++ > mesh.size()) return Mesh.NONE;
+				if(mesh.contains(n, x, y)) return n;
+				int c = mesh.vertex(n, 3-mesh.indexOf(n, right)-mesh.indexOf(n, left));
+				int o = mesh.orient(c, p, x, y);
+				if(o == 0) {
+					//through vertex c, go on from there
+					p = c;
+					t = n;
+					break;
+				}
+				if(o > 0) {
+					n = mesh.neighbour(n, mesh.indexOf(n, left));
+					left = c;
+				}
+				else {
+					n = mesh.neighbour(n, mesh.indexOf(n, right));
+					right = c;
+				}
+			}
+		}
+		return Mesh.NONE;
+	}
+
+	/**
+	 * Finds the triangle holding (x,y) by looking at every triangle
+	 */
+	private int scan(double x, double y) {
+		for(int t=0;t<mesh.triangleCount();t++)
+			if(mesh.isLive(t) && mesh.contains(t, x, y)) return t;
+		return Mesh.NONE;
+	}
+
+}
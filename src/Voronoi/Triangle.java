@@ -4,13 +4,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Triangle extends ArraySet<Point> {
 	
 	private int id;
 	private Point circumcenter = null;
+	int slot = Mesh.NONE;	// index in the mesh of the Triangulation holding it
 	
-	private static int i = 0;
+	private static final AtomicInteger ids = new AtomicInteger();
 	public static boolean moreInfo = false;
 	
 	public Triangle(Point...vertices) {
@@ -35,7 +37,7 @@ public class Triangle extends ArraySet<Point> {
 	
 	public Triangle(Collection<? extends Point> collection) {
 		super(collection);
-		id = i++;
+		id = ids.getAndIncrement();
 		if(this.size() != 3)
 			throw new IllegalArgumentException("Triangle must have 3 vertices");
 	}
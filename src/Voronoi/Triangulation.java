@@ -2,172 +2,368 @@ package Voronoi;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A 2D Delaunay Triangulation using an incremental Algorithm
+ *
+ * The topology lives in an index based {@link Mesh}; Triangle objects
+ * are only created when asked for and are cached per mesh slot.
+ * Points are located through a {@link Hierarchy} of sparser meshes.
+ * A point outside the initial triangle grows it, so any coordinates may
+ * be placed; triangles with a corner of it are told by
+ * {@link Mesh#isHull(int)}.
+ *
+ * A Triangulation is changed and read by one thread. Once shared, it
+ * also publishes an immutable {@link MeshView} after every change, which
+ * other threads read without locking and never half updated.
+ *
  * @author sohit
  *
  */
 
 public class Triangulation extends AbstractSet<Triangle>{
-	
-	private Triangle mostRecent = null;
-	private Graph<Triangle> triGraph;
-	
+
+	private static final int QUERY_RUN = 1 << 12;	// queries walked one after another on a thread
+	private static final int PUBLISH_EVERY = 1 << 14;	// insertions between views in delaunayPlaceAll
+	private static final double GROWTH = 4;			// scale of the initial triangle each time it grows
+
+	private int mostRecent = Mesh.NONE;
+	private Mesh mesh;
+	private Hierarchy hierarchy;
+	private SiteIndex sites;			// vertices by coordinates
+	private Triangle[] handles;
+	private List<Listener> listeners = new ArrayList<Listener>();
+	private volatile MeshView view = null;
+	private boolean sharing = false;
+	private int publishEvery = 1;
+	private int unpublished = 0;
+	private Insertion insertion = Insertion.BOWYER_WATSON;
+
+	/**
+	 * Told after every change, while the mesh still holds the triangles
+	 * removed (cavity) and created by it, and of every view published
+	 * once shared, which holds the changes told before it
+	 */
+	interface Listener {
+		void changed(Mesh mesh);
+		void published(MeshView view);
+	}
+
+	/**
+	 * How a site is put in the mesh once its triangle is found: by
+	 * replacing the cavity of triangles whose circle holds it, or by
+	 * splitting its triangle and flipping edges (Lawson). Both make the
+	 * same mesh; flips rewrite triangles in place instead of freeing and
+	 * taking slots.
+	 */
+	public enum Insertion { BOWYER_WATSON, LAWSON }
+
+	/**
+	 * What sites may be: any finite doubles, or integers no larger than
+	 * 2^28 in absolute value, such as pixels, whose predicates are then
+	 * worked out exactly in long arithmetic
+	 */
+	public enum Coordinates { DOUBLE, INTEGER }
+
 	public Triangulation(Triangle t) {
-		triGraph = new Graph<>();
-		triGraph.add(t);
-		mostRecent = t;
+		mesh = new Mesh();
+		int[] v = new int[3];
+		for(int i=0;i<3;i++) {
+			Point p = t.get(i);
+			checkDimension(p);
+			v[i] = mesh.addVertex(p.coord(0), p.coord(1), p);
+		}
+		mostRecent = mesh.addTriangle(v[0], v[1], v[2]);
+		hierarchy = new Hierarchy(mesh);
+		sites = new SiteIndex(mesh);
+		handles = new Triangle[16];
+		handles[mostRecent] = t;
+		t.slot = mostRecent;
 	}
+
+	/**
+	 * Wraps a mesh built in bulk whose first three vertices are
+	 * those of the initial triangle t
+	 */
+	Triangulation(Triangle t, Mesh mesh) {
+		this(t, new Hierarchy(mesh));
+		hierarchy.rebuild();
+	}
+
+	/**
+	 * Wraps a mesh and the hierarchy over it, both restored as they were
+	 */
+	Triangulation(Triangle t, Hierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		mesh = hierarchy.level(0);
+		sites = new SiteIndex(mesh);
+		handles = new Triangle[Math.max(16, mesh.triangleCount())];
+		mostRecent = mesh.triangleOf(0);
+		if(mesh.size() == 1) {
+			handles[mostRecent] = t;
+			t.slot = mostRecent;
+		}
+	}
+
 	public void delaunayPlace(Point point) {
-		
-		Triangle tri = locate(point);
-		//System.out.println(tri);
-		if(tri == null) 
-			throw new IllegalArgumentException("No containing triangle");
-		else if(tri.contains(point)) return ;
-		
-		Set<Triangle> cavity = getCavity(point, tri);
-		mostRecent = update(point,cavity);
+		place(point, Mesh.NONE);
 	}
-	
+
+	/**
+	 * Places all the points, reordered along a biased randomized
+	 * insertion order over Hilbert curve rounds so that each walk starts
+	 * next to the point being placed
+	 */
+	public void delaunayPlaceAll(Collection<? extends Point> points) {
+
+		Point[] array = points.toArray(new Point[0]);
+		int n = array.length;
+		double[] xy = new double[2*n];
+		double x0 = Double.POSITIVE_INFINITY, y0 = x0, x1 = -x0, y1 = -x0;
+		for(int i=0;i<n;i++) {
+			checkDimension(array[i]);
+			xy[2*i] = array[i].coord(0);
+			xy[2*i+1] = array[i].coord(1);
+			checkFinite(xy[2*i], xy[2*i+1]);
+			if(mesh.isInteger()) checkInteger(xy[2*i], xy[2*i+1]);
+			x0 = Math.min(x0, xy[2*i]);
+			y0 = Math.min(y0, xy[2*i+1]);
+			x1 = Math.max(x1, xy[2*i]);
+			y1 = Math.max(y1, xy[2*i+1]);
+		}
+		if(n > 0 && !holds(mesh.xy, x0, y0, x1, y1)) grow(x0, y0, x1, y1);
+
+		mesh.reserve(mesh.vertexCount()+n);
+		sites.reserve(sites.size()+n);
+		publishEvery = PUBLISH_EVERY;
+		try {
+			for(int i : SpatialSort.brio(xy, n, new Random(n)))
+				place(array[i], mostRecent);
+		} finally {
+			publishEvery = 1;
+			if(sharing && unpublished > 0) publish();
+		}
+	}
+
+	/**
+	 * Removes the site at point, retriangulating only its star.
+	 * Returns false if there is no such site.
+	 */
+	public boolean remove(Point point) {
+
+		checkDimension(point);
+		int v = sites.find(point.coord(0), point.coord(1));
+		if(v == Mesh.NONE) return false;
+		if(v < 3)
+			throw new IllegalArgumentException("Cannot remove a vertex of the initial triangle");
+
+		sites.remove(v);
+		hierarchy.remove(v);
+		for(int k=0;k<mesh.cavitySize;k++) {
+			int t = mesh.cavity[k];
+			if(t < handles.length) handles[t] = null;
+		}
+		mostRecent = mesh.created[0];
+		changed();
+		return true;
+	}
+
+	/**
+	 * Places point by replacing cavity, as found by getCavity, with a fan
+	 * around it; a site already at point is rejected.
+	 */
 	public Triangle update(Point point, Set<Triangle> cavity) {
-		Set<Set<Point>> boundary = new HashSet<Set<Point>>();
-		Set<Triangle> theTriangles = new HashSet<>();
-		
-		for(Triangle tri : cavity) {
-			theTriangles.addAll(neighbours(tri));
-			for(Point p : tri) {
-				Set<Point> set = tri.facetOpposite(p);
-				if(!boundary.contains(set))
-					boundary.add(set);
-				else boundary.remove(set);
-			}
+
+		checkDimension(point);
+		long start = Metrics.on ? System.nanoTime() : 0;
+		double x = point.coord(0), y = point.coord(1);
+		checkFinite(x, y);
+		if(mesh.isInteger()) checkInteger(x, y);
+		if(sites.find(x, y) != Mesh.NONE)
+			throw new IllegalArgumentException("There is a site at "+point+" already");
+		mesh.clearCavity();
+		for(Triangle t : cavity) {
+			int slot = slotOf(t);
+			if(slot == Mesh.NONE)
+				throw new NoSuchElementException("No such triangle exists");
+			mesh.addToCavity(slot);
 		}
-		
-		theTriangles.removeAll(cavity);
-		
-		for(Triangle t : cavity) triGraph.remove(t);
-		
-		Set<Triangle> newTriangles = new HashSet<>();
-		
-		for(Set<Point> set : boundary) {
-			set.add(point);
-			Triangle t = new Triangle(set);
-			triGraph.add(t);
-			newTriangles.add(t);
-		}
-		
-		theTriangles.addAll(newTriangles);
-		
-		for(Triangle t1 : newTriangles) 
-			for(Triangle t2 : theTriangles) 
-				if(t1.isNeighbour(t2)) 
-					triGraph.add(t1, t2);
-		
-		return newTriangles.iterator().next();
-	}
-	
+		hierarchy.lift(retriangulate(point));
+		if(Metrics.on) Metrics.insert(System.nanoTime()-start, mesh.cavitySize);
+		changed();
+		return handle(mostRecent);
+	}
+
+	/**
+	 * Triangles whose circumcircle holds point, found from triangle
+	 */
 	public Set<Triangle> getCavity(Point point, Triangle triangle) {
-		
+
+		checkDimension(point);
+		checkFinite(point.coord(0), point.coord(1));
+		int slot = slotOf(triangle);
+		if(slot == Mesh.NONE)
+			throw new NoSuchElementException("No such triangle exists");
+
+		mesh.findCavity(point.coord(0), point.coord(1), slot);
+
 		Set<Triangle> set = new HashSet<>();
-		Queue<Triangle> queue = new LinkedList<>();
-		Set<Triangle> visited = new HashSet<>();
-		
-		queue.add(triangle);
-		visited.add(triangle);
-		
-		while(!queue.isEmpty()) {
-			
-			triangle = queue.remove();
-			
-			if(point.circumcircle(triangle.toArray(new Point[0])) == 1) 
-				continue;
-			else set.add(triangle);
-			
-			for(Triangle neighbour : triGraph.getNeighbours(triangle))
-				if(!visited.contains(neighbour)) {
-					queue.add(neighbour);
-					visited.add(neighbour);
-				}
-		}
+		for(int k=0;k<mesh.cavitySize;k++) set.add(handle(mesh.cavity[k]));
 		return set;
 	}
-	
+
 	public Triangle locate(Point point) {
-		Triangle triangle = mostRecent;
-		if(!this.contains(triangle)) triangle = null;
-		
-		Set<Triangle> visited = new HashSet<Triangle>();
-		
-		while(triangle != null) {
-			
-			if(visited.contains(triangle)) break;
-			
-			visited.add(triangle);
-			
-			Point location = point.isOutside(triangle.toArray(new Point[0]));
-			
-			if(location == null) return triangle;
-			
-			triangle = this.oppositeNeighbour(location,triangle);
-		}
-		//System.out.println("Warning: Checking all triangles for " + point);
-		for(Triangle t : this) {
-			if(point.isOutside(t.toArray(new Point[0])) == null ) return t;
-		}
-		
-		//System.out.println("Warning: No triangle holds " + point);
-		return null;
-	}
-	
+		checkDimension(point);
+		int t = hierarchy.locate(point.coord(0), point.coord(1));
+		return t == Mesh.NONE ? null : handle(t);
+	}
+
+	/**
+	 * Site nearest to point, or null if there are none
+	 */
+	public Point nearestSite(Point point) {
+		checkDimension(point);
+		double x = point.coord(0), y = point.coord(1);
+		int v = nearestSite(x, y, hierarchy.nearest(x, y));
+		return v == Mesh.NONE ? null : mesh.point(v);
+	}
+
+	/**
+	 * Writes to out[i] the site nearest to (xs[i],ys[i]), as the vertex
+	 * number used by {@link VoronoiDiagram#site(int)}, or -1 if there are
+	 * no sites. The queries are sorted along a Hilbert curve and cut into
+	 * runs spread over the common pool; each query walks from the answer to
+	 * the one before it. The triangulation must not change meanwhile.
+	 */
+	public void nearestSites(double[] xs, double[] ys, int[] out) {
+		nearestSites(xs, ys, out, ForkJoinPool.commonPool());
+	}
+
+	public void nearestSites(double[] xs, double[] ys, int[] out, ForkJoinPool pool) {
+		if(xs.length != ys.length || out.length < xs.length)
+			throw new IllegalArgumentException("Query arrays differ in length");
+
+		int n = xs.length;
+		double[] xy = new double[2*n];
+		for(int i=0;i<n;i++) {
+			xy[2*i] = xs[i];
+			xy[2*i+1] = ys[i];
+		}
+		pool.invoke(new Queries(xs, ys, out, SpatialSort.hilbertCells(xy, n), 0, n));
+	}
+
+	/**
+	 * Euclidean minimum spanning tree of the sites, with the nodes and
+	 * lengths of a {@link SiteGraph}. Its edges are Delaunay edges, sorted
+	 * on the common pool; the triangulation must not change meanwhile.
+	 */
+	public SiteGraph euclideanMST() {
+		return new SiteGraph(this, true).euclideanMST();
+	}
+
+	/**
+	 * Gabriel graph of the sites: the Delaunay edges with no other site
+	 * inside or on their diametral circle
+	 */
+	public SiteGraph gabrielGraph() {
+		return gabrielGraph(ForkJoinPool.commonPool());
+	}
+
+	public SiteGraph gabrielGraph(ForkJoinPool pool) {
+		return new SiteGraph(this, true, pool).gabrielGraph(pool);
+	}
+
+	/**
+	 * Relative neighbourhood graph of the sites: the edges with no site
+	 * closer to both ends than they are to each other
+	 */
+	public SiteGraph relativeNeighborhoodGraph() {
+		return relativeNeighborhoodGraph(ForkJoinPool.commonPool());
+	}
+
+	public SiteGraph relativeNeighborhoodGraph(ForkJoinPool pool) {
+		return new SiteGraph(this, true, pool).relativeNeighborhoodGraph(pool);
+	}
+
 	public List<Triangle> surroundingTriangles(Point point, Triangle triangle) {
-		
-		if(!triangle.contains(point))
+
+		int start = slotOf(triangle);
+		int v = vertexOf(point, start);
+		if(v == Mesh.NONE)
 			throw new IllegalArgumentException("Point is not a vertex of Triangle");
-		
+
+		// rewind clockwise to the hull in case the vertex is on it
+		int t = start;
+		do {
+			int prev = mesh.neighbour(t, (mesh.indexOf(t, v)+2)%3);
+			if(prev == Mesh.NONE) break;
+			t = prev;
+		} while(t != start);
+
+		// then collect the fan counter-clockwise
 		List<Triangle> list = new ArrayList<Triangle>();
-		Triangle start = triangle;
-		
-		Point other = triangle.getOtherVertex(point); // this point decides whether cc or ccw
-		while(true) {
-			list.add(triangle);
-			Triangle prev = triangle;
-			triangle = this.oppositeNeighbour(other,triangle); //next triangle
-			other = prev.getOtherVertex(point,other); //next vertex
-			if(triangle == start) break;
-		}
-		
+		start = t;
+		do {
+			list.add(handle(t));
+			t = mesh.neighbour(t, (mesh.indexOf(t, v)+1)%3);
+		} while(t != start && t != Mesh.NONE);
+
 		return list;
 	}
-	
+
 	public Set<Triangle> neighbours(Triangle triangle) {
-		if(!triGraph.getNodes().contains(triangle))
-			throw new NoSuchElementException("No such triangle exists"); 
-		return triGraph.getNeighbours(triangle);
+		int t = slotOf(triangle);
+		if(t == Mesh.NONE)
+			throw new NoSuchElementException("No such triangle exists");
+
+		ArraySet<Triangle> set = new ArraySet<>();
+		for(int i=0;i<3;i++) {
+			int n = mesh.neighbour(t, i);
+			if(n != Mesh.NONE) set.add(handle(n));
+		}
+		return Collections.unmodifiableSet(set);
 	}
-	
+
 	public Triangle oppositeNeighbour(Point point, Triangle triangle) {
-		
-		if(!triangle.contains(point)) 
+
+		int t = slotOf(triangle);
+		int v = vertexOf(point, t);
+		if(v == Mesh.NONE)
 			throw new NoSuchElementException("the triangle does not contain the given point");
-		
-		for(Triangle neighbour : triGraph.getNeighbours(triangle)) 
-			if(!neighbour.contains(point)) return neighbour;
-		
-		return null;
+
+		int n = mesh.neighbour(t, mesh.indexOf(t, v));
+		return n == Mesh.NONE ? null : handle(n);
 	}
-	
+
 	@Override
 	public Iterator<Triangle> iterator() {
-		return triGraph.getNodes().iterator();
+		return new Iterator<Triangle>() {
+			private int next = advance(0);
+
+			private int advance(int t) {
+				while(t < mesh.triangleCount() && !mesh.isLive(t)) t++;
+				return t;
+			}
+			public boolean hasNext() { return next < mesh.triangleCount(); }
+			public Triangle next() {
+				if(!hasNext()) throw new NoSuchElementException();
+				Triangle t = handle(next);
+				next = advance(next+1);
+				return t;
+			}
+			public void remove() { throw new UnsupportedOperationException(); }
+		};
 	}
 
 	@Override
@@ -177,11 +373,319 @@ public class Triangulation extends AbstractSet<Triangle>{
 
 	@Override
 	public int size() {
-		return triGraph.getNodes().size();
+		return mesh.size();
 	}
-	
+
 	public boolean contains(Object t) {
-		return triGraph.getNodes().contains(t);
+		return slotOf(t) != Mesh.NONE;
+	}
+
+	public Coordinates getCoordinates() {
+		return mesh.isInteger() ? Coordinates.INTEGER : Coordinates.DOUBLE;
+	}
+
+	/**
+	 * Switches to integer coordinates, which every site placed so far
+	 * must have, or back to doubles
+	 */
+	public void setCoordinates(Coordinates coordinates) {
+		if(coordinates == null)
+			throw new IllegalArgumentException("No coordinate mode");
+		boolean integer = coordinates == Coordinates.INTEGER;
+		if(integer)
+			for(int v=3;v<mesh.vertexCount();v++)
+				if(mesh.triangleOf(v) != Mesh.NONE) checkInteger(mesh.x(v), mesh.y(v));
+		for(int k=0;k<hierarchy.levels();k++) hierarchy.level(k).setInteger(integer);
+	}
+
+	public Insertion getInsertion() {
+		return insertion;
 	}
-	
+
+	public void setInsertion(Insertion insertion) {
+		if(insertion == null)
+			throw new IllegalArgumentException("No insertion strategy");
+		this.insertion = insertion;
+	}
+
+	/**
+	 * Counters of the point location walks made so far
+	 */
+	public WalkStats walkStats() {
+		return hierarchy.walkStats();
+	}
+
+	public void resetWalkStats() {
+		hierarchy.resetWalkStats();
+	}
+
+	/**
+	 * Starts publishing views, and returns the first one
+	 */
+	public MeshView share() {
+		if(!sharing) {
+			sharing = true;
+			publish();
+		}
+		return view;
+	}
+
+	/**
+	 * View of the triangulation after the last change, or null until
+	 * share() is called. Safe to call from any thread.
+	 */
+	public MeshView view() {
+		return view;
+	}
+
+	Mesh mesh() {
+		return mesh;
+	}
+
+	Hierarchy hierarchy() {
+		return hierarchy;
+	}
+
+	Triangle triangle(int t) {
+		return handle(t);
+	}
+
+	void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	private void changed() {
+		for(int k=0;k<listeners.size();k++) listeners.get(k).changed(mesh);
+		if(sharing && ++unpublished >= publishEvery) publish();
+	}
+
+	private void publish() {
+		view = hierarchy.view(view);
+		unpublished = 0;
+		for(int k=0;k<listeners.size();k++) listeners.get(k).published(view);
+	}
+
+	/**
+	 * Places point unless there is a site there already, locating it
+	 * through the hierarchy, or by walking from hint when one is given
+	 */
+	private void place(Point point, int hint) {
+
+		checkDimension(point);
+		long start = Metrics.on ? System.nanoTime() : 0;
+		double x = point.coord(0), y = point.coord(1);
+		checkFinite(x, y);
+		if(mesh.isInteger()) checkInteger(x, y);
+		if(sites.find(x, y) != Mesh.NONE) return ;
+		int tri = hint == Mesh.NONE ? hierarchy.locate(x, y) : hierarchy.walk(x, y, hint);
+		//outside, or on an edge of the initial triangle, which would leave a flat triangle
+		if(tri == Mesh.NONE || mesh.isHull(tri) && !holds(mesh.xy, x, y, x, y)) {
+			grow(x, y, x, y);
+			tri = hierarchy.locate(x, y);
+		}
+		if(tri == Mesh.NONE)
+			throw new IllegalArgumentException("No containing triangle");
+
+		if(insertion == Insertion.LAWSON) hierarchy.lift(flip(point, tri));
+		else {
+			mesh.findCavity(x, y, tri);
+			hierarchy.lift(retriangulate(point));
+		}
+		if(Metrics.on) Metrics.insert(System.nanoTime()-start, mesh.cavitySize);
+		changed();
+	}
+
+	/**
+	 * Replaces the cavity currently held by the mesh with a fan around point
+	 * and returns the new vertex
+	 */
+	private int retriangulate(Point point) {
+		for(int k=0;k<mesh.cavitySize;k++) {
+			int t = mesh.cavity[k];
+			if(t < handles.length) handles[t] = null;
+		}
+		int v = mesh.addVertex(point.coord(0), point.coord(1), point);
+		mostRecent = mesh.retriangulate(v);
+		sites.add(v);
+		return v;
+	}
+
+	/**
+	 * Places point in triangle tri by flips and returns the new vertex
+	 */
+	private int flip(Point point, int tri) {
+		int v = mesh.addVertex(point.coord(0), point.coord(1), point);
+		mostRecent = mesh.flipInsert(v, tri);
+		for(int k=0;k<mesh.cavitySize;k++) {
+			int t = mesh.cavity[k];
+			if(t < handles.length) handles[t] = null;
+		}
+		sites.add(v);
+		return v;
+	}
+
+	/**
+	 * Scales the initial triangle about its centroid until it holds the
+	 * box (x0,y0)-(x1,y1) and triangulates the sites again inside it.
+	 * Vertex numbers are kept; listeners are told every triangle was
+	 * removed and made again.
+	 */
+	private void grow(double x0, double y0, double x1, double y1) {
+
+		double[] corners = grown(mesh.xy, mesh.isInteger(), x0, y0, x1, y1);
+
+		for(int v=0;v<3;v++) sites.remove(v);
+		mesh.moveCorners(corners, new Random(mesh.vertexCount()));
+		for(int v=0;v<3;v++) sites.add(v);
+		hierarchy.rebuild();
+		Arrays.fill(handles, null);
+		mostRecent = mesh.triangleOf(0);
+		changed();
+	}
+
+	/**
+	 * Corners of the triangle of the first three points of xy, scaled
+	 * about its centroid by powers of GROWTH until it holds the box
+	 * (x0,y0)-(x1,y1), and rounded when integer
+	 */
+	static double[] grown(double[] xy, boolean integer, double x0, double y0, double x1, double y1) {
+
+		double cx = (xy[0]+xy[2]+xy[4])/3, cy = (xy[1]+xy[3]+xy[5])/3;
+		double[] corners = new double[6];
+		for(double scale=GROWTH;;scale*=GROWTH) {
+			for(int v=0;v<3;v++) {
+				corners[2*v] = cx + (xy[2*v]-cx)*scale;
+				corners[2*v+1] = cy + (xy[2*v+1]-cy)*scale;
+				if(integer) {
+					corners[2*v] = Math.rint(corners[2*v]);
+					corners[2*v+1] = Math.rint(corners[2*v+1]);
+				}
+				if(Double.isInfinite(corners[2*v]) || Double.isInfinite(corners[2*v+1]))
+					throw new IllegalArgumentException("No containing triangle");
+			}
+			if(holds(corners, x0, y0, x1, y1)) return corners;
+		}
+	}
+
+	/**
+	 * True if the triangle of the first three points of xy holds the box
+	 * (x0,y0)-(x1,y1) strictly inside
+	 */
+	static boolean holds(double[] xy, double x0, double y0, double x1, double y1) {
+		double sign = Point.orient2d(xy[0],xy[1],xy[2],xy[3],xy[4],xy[5]);
+		for(int i=0;i<3;i++) {
+			int j = (i+1)%3;
+			for(int k=0;k<4;k++) {
+				double o = Point.orient2d(xy[2*i],xy[2*i+1],xy[2*j],xy[2*j+1],k < 2 ? x0 : x1,k%2 == 0 ? y0 : y1);
+				if(!(o*sign > 0)) return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Walks from vertex hint to the site nearest to (x,y). Only a point far
+	 * outside the sites can be nearer a vertex of the initial triangle; the
+	 * sites are then scanned.
+	 */
+	private int nearestSite(double x, double y, int hint) {
+		int v = mesh.nearestVertex(x, y, hint);
+		if(v >= 3) return v;
+
+		double min = Double.POSITIVE_INFINITY;
+		v = Mesh.NONE;
+		for(int u=3;u<mesh.vertexCount();u++) {
+			if(mesh.triangleOf(u) == Mesh.NONE) continue;
+			double dx = mesh.x(u)-x, dy = mesh.y(u)-y;
+			double d = dx*dx + dy*dy;
+			if(d < min) {
+				min = d;
+				v = u;
+			}
+		}
+		return v;
+	}
+
+	/**
+	 * Answers the queries order[lo,hi), splitting them into runs
+	 */
+	private class Queries extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final double[] xs, ys;
+		private final int[] out, order;
+		private final int lo, hi;
+
+		Queries(double[] xs, double[] ys, int[] out, int[] order, int lo, int hi) {
+			this.xs = xs;
+			this.ys = ys;
+			this.out = out;
+			this.order = order;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo > QUERY_RUN) {
+				int mid = (lo+hi) >>> 1;
+				invokeAll(new Queries(xs, ys, out, order, lo, mid), new Queries(xs, ys, out, order, mid, hi));
+				return;
+			}
+			if(lo == hi) return;
+			int hint = hierarchy.nearest(xs[order[lo]], ys[order[lo]]);
+			for(int k=lo;k<hi;k++) {
+				int i = order[k];
+				int v = nearestSite(xs[i], ys[i], hint);
+				out[i] = v;
+				if(v != Mesh.NONE) hint = v;
+			}
+		}
+	}
+
+	private Triangle handle(int t) {
+		if(t >= handles.length)
+			handles = Arrays.copyOf(handles, Math.max(2*handles.length, mesh.triangleCount()));
+		Triangle tri = handles[t];
+		if(tri == null) {
+			tri = new Triangle(mesh.point(mesh.vertex(t,0)),
+					mesh.point(mesh.vertex(t,1)), mesh.point(mesh.vertex(t,2)));
+			tri.slot = t;
+			handles[t] = tri;
+		}
+		return tri;
+	}
+
+	private int slotOf(Object o) {
+		if(!(o instanceof Triangle)) return Mesh.NONE;
+		int t = ((Triangle)o).slot;
+		if(t < 0 || t >= handles.length || handles[t] != o) return Mesh.NONE;
+		return t;
+	}
+
+	private int vertexOf(Point point, int t) {
+		if(t == Mesh.NONE) return Mesh.NONE;
+		for(int i=0;i<3;i++) {
+			int v = mesh.vertex(t, i);
+			if(mesh.point(v).equals(point)) return v;
+		}
+		return Mesh.NONE;
+	}
+
+	private static void checkDimension(Point point) {
+		if(point.dimension() != 2)
+			throw new IllegalArgumentException("Point must be two-dimensional");
+	}
+
+	static void checkFinite(double x, double y) {
+		if(Double.isNaN(x) || Double.isInfinite(x) || Double.isNaN(y) || Double.isInfinite(y))
+			throw new IllegalArgumentException("Point must have finite coordinates");
+	}
+
+	private static void checkInteger(double x, double y) {
+		if(!IntegerPredicates.fits(x) || !IntegerPredicates.fits(y))
+			throw new IllegalArgumentException("Point must have integer coordinates up to "+IntegerPredicates.LIMIT);
+	}
+
 }
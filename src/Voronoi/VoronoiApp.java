@@ -21,6 +21,7 @@ public class VoronoiApp extends javax.swing.JApplet
 	
 
 	public static void main(String[] args) {
+		Metrics.register();
 		VoronoiApp vp = new VoronoiApp();
 		vp.init();
 		
@@ -97,12 +98,11 @@ public class VoronoiApp extends javax.swing.JApplet
 
 	@Override
 	public void mousePressed(MouseEvent e) {
-		if(e.getSource() != voronoiPanel) return;
-		Point point = new Point(e.getX(),e.getY());
+		if(e.getSource() != voronoiPanel || !SwingUtilities.isLeftMouseButton(e)) return;
+		Point point = voronoiPanel.pointAt(e.getX(),e.getY());
 		
 		if(debug) System.out.println("Click "+point);
 		voronoiPanel.addPoint(point);
-		voronoiPanel.repaint();
 	}
 
 	@Override
@@ -0,0 +1,500 @@
+package Voronoi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line driver for batch jobs, without Swing or a display.
+ *
+ * Reads points as "x,y" lines or as big-endian double pairs, triangulates
+ * them inside a triangle around their bounding box (or loads a saved
+ * {@link Snapshot} instead) and streams out the
+ * triangles, the Delaunay edges or the Voronoi cells. Triangles and edges
+ * are those of the sites alone, taken from {@link Mesh#closedHull()} so
+ * that no corner near the hull hides any; cells of sites on the hull
+ * reach out to the initial triangle, as they do on screen. Output goes
+ * straight from the mesh through a buffer of fixed size, and the time
+ * taken by each phase is reported on stderr.
+ *
+ * With -m stream the points, sorted by x, go through a
+ * {@link StreamingTriangulation} as they are read and only the triangles
+ * near the sweep line are held. The initial triangle then needs the
+ * bounding box beforehand, given with --bounds or found by a first pass
+ * over the input file.
+ *
+ * @author sohit
+ *
+ */
+public class VoronoiBatch {
+
+	private static final String USAGE =
+		"usage: VoronoiBatch [options]\n"+
+		"  -i, --input FILE        points to read, - for stdin (default)\n"+
+		"  -o, --output FILE       where to write, - for stdout (default)\n"+
+		"  -w, --write KIND        triangles (default), edges or cells\n"+
+		"  --input-format FORMAT   csv (default), binary or snapshot\n"+
+		"  --output-format FORMAT  csv (default) or binary\n"+
+		"  -m, --method METHOD     incremental (default), lawson, dc or stream (input\n"+
+		"                          sorted by x, triangles only)\n"+
+		"  --bounds X0,Y0,X1,Y1    bounding box of the input, for stream on stdin\n"+
+		"  --integer               points are integers up to 2^28, tested exactly in long\n"+
+		"                          arithmetic (incremental and lawson)\n"+
+		"  -b, --buffer BYTES      size of the input and output buffers (default 65536)\n"+
+		"  -s, --save FILE         also save a snapshot of the triangulation\n"+
+		"  -q, --quiet             no timings on stderr\n"+
+		"\n"+
+		"csv output is one item per line: x0,y0,x1,y1,... Binary output is big-endian\n"+
+		"doubles, each cell preceded by an int count of its corners.\n";
+
+	private static final double MARGIN = 10;	// initial triangle size in bounding boxes
+
+	private String input = "-", output = "-";
+	private String write = "triangles";
+	private String inputFormat = "csv";
+	private String save = null;
+	private boolean binaryOut = false;
+	private String method = "incremental";
+	private double[] bounds = null;
+	private int bufferSize = 1 << 16;
+	private boolean quiet = false;
+	private boolean integer = false;
+	private boolean help = false;
+
+	private long phaseStart;
+
+	public static void main(String[] args) {
+		int status = execute(args);
+		if(status != 0) System.exit(status);
+	}
+
+	/**
+	 * Runs the job args describe, as main does, and returns the exit
+	 * status: 0 when done, 1 after an error in the input or output and 2
+	 * after one in the arguments
+	 */
+	static int execute(String... args) {
+		VoronoiBatch batch = new VoronoiBatch();
+		try {
+			batch.parse(args);
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.print(USAGE);
+			return 2;
+		}
+		if(batch.help) {
+			System.out.print(USAGE);
+			return 0;
+		}
+		try {
+			batch.run();
+		} catch(IOException e) {
+			System.err.println("I/O error: "+e.getMessage());
+			return 1;
+		}
+		return 0;
+	}
+
+	private void parse(String[] args) {
+		for(int i=0;i<args.length;i++) {
+			String arg = args[i];
+			if(arg.equals("-h") || arg.equals("--help")) {
+				help = true;
+				return;
+			}
+			else if(arg.equals("-q") || arg.equals("--quiet")) quiet = true;
+			else if(arg.equals("--integer")) integer = true;
+			else {
+				if(i+1 == args.length) throw new IllegalArgumentException("Missing value for "+arg);
+				String value = args[++i];
+				if(arg.equals("-i") || arg.equals("--input")) input = value;
+				else if(arg.equals("-o") || arg.equals("--output")) output = value;
+				else if(arg.equals("-w") || arg.equals("--write")) write = choice(arg, value, "triangles", "edges", "cells");
+				else if(arg.equals("--input-format")) inputFormat = choice(arg, value, "csv", "binary", "snapshot");
+				else if(arg.equals("-s") || arg.equals("--save")) save = value;
+				else if(arg.equals("--output-format")) binaryOut = choice(arg, value, "csv", "binary").equals("binary");
+				else if(arg.equals("-m") || arg.equals("--method")) method = choice(arg, value, "incremental", "lawson", "dc", "stream");
+				else if(arg.equals("--bounds")) bounds = parseBounds(value);
+				else if(arg.equals("-b") || arg.equals("--buffer")) {
+					try {
+						bufferSize = Integer.parseInt(value);
+					} catch(NumberFormatException e) {
+						bufferSize = 0;
+					}
+					if(bufferSize <= 0) throw new IllegalArgumentException("Invalid buffer size "+value);
+				}
+				else throw new IllegalArgumentException("Unknown option "+arg);
+			}
+		}
+		if(integer && (method.equals("dc") || method.equals("stream")))
+			throw new IllegalArgumentException("--integer needs incremental or lawson");
+		if(method.equals("stream")) {
+			if(!write.equals("triangles")) throw new IllegalArgumentException("stream only writes triangles");
+			if(inputFormat.equals("snapshot") || save != null)
+				throw new IllegalArgumentException("stream does not read or save snapshots");
+			if(input.equals("-") && bounds == null) throw new IllegalArgumentException("stream on stdin needs --bounds");
+		}
+	}
+
+	private static double[] parseBounds(String value) {
+		String[] fields = value.split(",");
+		double[] box = new double[4];
+		try {
+			if(fields.length != 4) throw new NumberFormatException();
+			for(int i=0;i<4;i++) box[i] = Double.parseDouble(fields[i].trim());
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid bounds "+value);
+		}
+		if(box[2] < box[0] || box[3] < box[1]) throw new IllegalArgumentException("Invalid bounds "+value);
+		return box;
+	}
+
+	private static String choice(String option, String value, String...choices) {
+		for(String c : choices)
+			if(c.equals(value)) return c;
+		throw new IllegalArgumentException("Invalid value for "+option+": "+value);
+	}
+
+	private void run() throws IOException {
+
+		if(method.equals("stream")) {
+			stream();
+			return;
+		}
+
+		Triangulation dt;
+		if(inputFormat.equals("snapshot")) {
+			if(input.equals("-")) throw new IOException("A snapshot must be read from a file");
+			startPhase();
+			dt = Snapshot.read(new File(input));
+			endPhase("load", dt.size()+" triangles");
+		}
+		else {
+			startPhase();
+			final double[][] xy = {new double[1024]};
+			final int[] count = {0};
+			read(new Points() {
+				public void point(double x, double y) {
+					if(count[0]+2 > xy[0].length) xy[0] = Arrays.copyOf(xy[0], 2*xy[0].length);
+					xy[0][count[0]++] = x;
+					xy[0][count[0]++] = y;
+				}
+			});
+			int n = count[0]/2;
+			endPhase("read", n+" points");
+
+			startPhase();
+			dt = triangulate(xy[0], n);
+			endPhase("triangulate", dt.size()+" triangles");
+		}
+
+		if(save != null) {
+			startPhase();
+			Snapshot.write(dt, new File(save));
+			endPhase("save", save);
+		}
+
+		startPhase();
+		OutputStream out = output.equals("-") ? System.out : new FileOutputStream(output);
+		long items;
+		try {
+			//cells reach out to the corners, triangles and edges cover the hull
+			Mesh mesh = write.equals("cells") ? dt.mesh() : dt.mesh().closedHull();
+			items = binaryOut ? writeBinary(mesh, out) : writeCsv(mesh, out);
+		} finally {
+			if(out != System.out) out.close();
+		}
+		endPhase("write", items+" "+write);
+	}
+
+	/**
+	 * Triangulates the points as they are read, writing each triangle once
+	 * no later point can change it
+	 */
+	private void stream() throws IOException {
+
+		double[] box = bounds;
+		if(box == null) {
+			startPhase();
+			final double[] b = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+					Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+			final long[] n = {0};
+			read(new Points() {
+				public void point(double x, double y) {
+					b[0] = Math.min(b[0], x);
+					b[1] = Math.min(b[1], y);
+					b[2] = Math.max(b[2], x);
+					b[3] = Math.max(b[3], y);
+					n[0]++;
+				}
+			});
+			box = n[0] == 0 ? new double[] {0, 0, 0, 0} : b;
+			endPhase("bounds", n[0]+" points");
+		}
+
+		startPhase();
+		OutputStream out = output.equals("-") ? System.out : new FileOutputStream(output);
+		final StreamingTriangulation st;
+		try {
+			final Sink sink;
+			Flushable buffer;
+			if(binaryOut) {
+				DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, bufferSize));
+				sink = binarySink(data);
+				buffer = data;
+			}
+			else {
+				Writer writer = new OutputStreamWriter(new BufferedOutputStream(out, bufferSize), StandardCharsets.UTF_8);
+				sink = csvSink(writer);
+				buffer = writer;
+			}
+			final double[] item = new double[6];
+			st = new StreamingTriangulation(initialTriangle(box), new StreamingTriangulation.Sink() {
+				public void triangle(double ax, double ay, double bx, double by, double cx, double cy) throws IOException {
+					item[0] = ax;
+					item[1] = ay;
+					item[2] = bx;
+					item[3] = by;
+					item[4] = cx;
+					item[5] = cy;
+					sink.item(item, 6);
+				}
+			});
+			read(new Points() {
+				public void point(double x, double y) throws IOException {
+					try {
+						st.add(x, y);
+					} catch(IllegalArgumentException e) {
+						throw new IOException(e.getMessage());
+					}
+				}
+			});
+			st.finish();
+			buffer.flush();
+		} finally {
+			if(out != System.out) out.close();
+		}
+		endPhase("stream", st.points()+" points, "+st.emitted()+" triangles, at most "+st.maxActiveTriangles()+" held");
+	}
+
+	private static Triangle initialTriangle(double[] box) {
+		double size = Math.max(1, Math.max(box[2]-box[0], box[3]-box[1]));
+		double cx = (box[0]+box[2])/2, cy = (box[1]+box[3])/2;
+		double r = MARGIN*size;
+		return new Triangle(new Point(cx-r, cy-r), new Point(cx+r, cy-r), new Point(cx, cy+r));
+	}
+
+	private Triangulation triangulate(final double[] xy, final int n) throws IOException {
+
+		double[] box = SpatialSort.bounds(xy, n);
+		if(n == 0) box = new double[] {0, 0, 0, 0};
+		Triangle initial = initialTriangle(box);
+
+		List<Point> points = new AbstractList<Point>() {
+			public Point get(int i) {
+				return new Point(xy[2*i], xy[2*i+1]);
+			}
+			public int size() {
+				return n;
+			}
+		};
+
+		try {
+			if(method.equals("dc")) return DivideAndConquer.build(initial, points);
+			Triangulation dt = new Triangulation(initial);
+			if(method.equals("lawson")) dt.setInsertion(Triangulation.Insertion.LAWSON);
+			if(integer) dt.setCoordinates(Triangulation.Coordinates.INTEGER);
+			dt.delaunayPlaceAll(points);
+			return dt;
+		} catch(IllegalArgumentException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Receives the input points one at a time
+	 */
+	private interface Points {
+		void point(double x, double y) throws IOException;
+	}
+
+	private void read(Points points) throws IOException {
+		InputStream in = input.equals("-") ? System.in : new FileInputStream(input);
+		try {
+			if(inputFormat.equals("binary")) readBinary(in, points);
+			else readCsv(in, points);
+		} finally {
+			if(in != System.in) in.close();
+		}
+	}
+
+	private void readCsv(InputStream in, Points points) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), bufferSize);
+		int count = 0, lineNumber = 0;
+		String line;
+		while((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#")) continue;
+
+			String[] fields = line.split("[,;\\s]+");
+			double x, y;
+			try {
+				if(fields.length < 2) throw new NumberFormatException();
+				x = Double.parseDouble(fields[0]);
+				y = Double.parseDouble(fields[1]);
+			} catch(NumberFormatException e) {
+				if(count == 0 && lineNumber == 1) continue;		// header
+				throw new IOException("Invalid point on line "+lineNumber+": "+line);
+			}
+			points.point(x, y);
+			count++;
+		}
+	}
+
+	private void readBinary(InputStream in, Points points) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in, bufferSize));
+		while(true) {
+			double x;
+			try {
+				x = data.readDouble();
+			} catch(EOFException e) {
+				break;
+			}
+			double y;
+			try {
+				y = data.readDouble();
+			} catch(EOFException e) {
+				throw new IOException("Odd number of coordinates");
+			}
+			points.point(x, y);
+		}
+	}
+
+	/**
+	 * Receives the output items one at a time, as x0,y0,x1,y1,...
+	 */
+	private interface Sink {
+		void item(double[] coords, int count) throws IOException;
+	}
+
+	private Sink csvSink(final Writer writer) {
+		return new Sink() {
+			public void item(double[] coords, int count) throws IOException {
+				for(int i=0;i<count;i++) {
+					if(i > 0) writer.write(',');
+					writer.write(Double.toString(coords[i]));
+				}
+				writer.write('\n');
+			}
+		};
+	}
+
+	private Sink binarySink(final DataOutputStream data) {
+		final boolean cells = write.equals("cells");
+		return new Sink() {
+			public void item(double[] coords, int count) throws IOException {
+				if(cells) data.writeInt(count/2);
+				for(int i=0;i<count;i++) data.writeDouble(coords[i]);
+			}
+		};
+	}
+
+	private long writeCsv(Mesh mesh, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(new BufferedOutputStream(out, bufferSize), StandardCharsets.UTF_8);
+		long items = write(mesh, csvSink(writer));
+		writer.flush();
+		return items;
+	}
+
+	private long writeBinary(Mesh mesh, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, bufferSize));
+		long items = write(mesh, binarySink(data));
+		data.flush();
+		return items;
+	}
+
+	/**
+	 * Walks the mesh and hands every output item to sink, returning how many
+	 */
+	private long write(Mesh mesh, Sink sink) throws IOException {
+		double[] item = new double[16];
+		long items = 0;
+
+		if(write.equals("cells")) {
+			for(int v=3;v<mesh.vertexCount();v++) {
+				int start = mesh.triangleOf(v), t = start, count = 0;
+				if(start == Mesh.NONE) continue;
+				do {
+					if(count+2 > item.length) item = Arrays.copyOf(item, 2*item.length);
+					mesh.circumcenter(t, item, count);
+					count += 2;
+					t = mesh.neighbour(t, (mesh.indexOf(t, v)+1)%3);
+				} while(t != start);
+				sink.item(item, count);
+				items++;
+			}
+			return items;
+		}
+
+		boolean edges = write.equals("edges");
+		for(int t=0;t<mesh.triangleCount();t++) {
+			if(!mesh.isLive(t)) continue;
+			if(!edges) {
+				if(mesh.isHull(t)) continue;
+				int a = mesh.vertex(t, 0), b = mesh.vertex(t, 1), c = mesh.vertex(t, 2);
+				item[0] = mesh.x(a);
+				item[1] = mesh.y(a);
+				item[2] = mesh.x(b);
+				item[3] = mesh.y(b);
+				item[4] = mesh.x(c);
+				item[5] = mesh.y(c);
+				sink.item(item, 6);
+				items++;
+				continue;
+			}
+			//each edge once, from the triangle with the lower slot
+			for(int i=0;i<3;i++) {
+				int n = mesh.neighbour(t, i);
+				if(n != Mesh.NONE && n < t) continue;
+				int a = mesh.vertex(t, (i+1)%3), b = mesh.vertex(t, (i+2)%3);
+				if(a < 3 || b < 3) continue;
+				item[0] = mesh.x(a);
+				item[1] = mesh.y(a);
+				item[2] = mesh.x(b);
+				item[3] = mesh.y(b);
+				sink.item(item, 4);
+				items++;
+			}
+		}
+		return items;
+	}
+
+	private void startPhase() {
+		phaseStart = System.nanoTime();
+	}
+
+	private void endPhase(String phase, String what) {
+		if(quiet) return;
+		double ms = (System.nanoTime()-phaseStart)/1e6;
+		System.err.println(String.format("%-12s %10.1f ms  %s", phase, ms, what));
+	}
+
+}
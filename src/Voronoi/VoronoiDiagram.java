@@ -0,0 +1,205 @@
+package Voronoi;
+
+import java.util.Arrays;
+
+/**
+ * Voronoi cells of the sites of a Triangulation, kept up to date as
+ * the triangulation changes.
+ *
+ * Each cell is a flat array x0,y0,x1,y1,... of the circumcenters of the
+ * triangles around its site, counter-clockwise. Cells are built when
+ * first asked for and dropped again when a triangle around their site is
+ * created or removed, so after an insertion only the sites of the cavity
+ * are rebuilt. Circumcenters are cached per triangle slot the same way.
+ *
+ * A diagram may also be made of a published {@link MeshView} and moved on
+ * to the views after it by the thread reading them. A later view shares
+ * the pages of triangle slots that did not change, so only the cells of
+ * the vertices on the other pages are dropped.
+ *
+ * @author sohit
+ *
+ */
+public class VoronoiDiagram {
+
+	private final Triangulation dt;
+	private final Mesh mesh;						// null for a diagram of views
+	private MeshView view;
+	private double[][] cells = new double[16][];	// cell of each vertex, null until built
+	private double[] centers = new double[32];		// circumcenter of each triangle slot, NaN until computed
+	private int rebuilt = 0;
+
+	public VoronoiDiagram(Triangulation dt) {
+		this.dt = dt;
+		this.mesh = dt.mesh();
+		Arrays.fill(centers, Double.NaN);
+		dt.addListener(new Triangulation.Listener() {
+			public void changed(Mesh mesh) {
+				invalidate(mesh);
+			}
+			public void published(MeshView view) {}
+		});
+	}
+
+	/**
+	 * Diagram of view, moved on to later views by follow(MeshView)
+	 */
+	public VoronoiDiagram(MeshView view) {
+		this.dt = null;
+		this.mesh = null;
+		this.view = view;
+		Arrays.fill(centers, Double.NaN);
+	}
+
+	/**
+	 * The triangulation followed, or null for a diagram of views
+	 */
+	public Triangulation triangulation() {
+		return dt;
+	}
+
+	/**
+	 * Moves on to next, a view published after the one shown so far,
+	 * dropping the cells and circumcenters of the triangle slots that
+	 * changed in between. A view of another triangulation drops them all.
+	 */
+	public void follow(MeshView next) {
+		if(mesh != null)
+			throw new IllegalStateException("The diagram follows its triangulation");
+		MeshView previous = view;
+		view = next;
+		if(next == previous) return;
+		if(previous == null || previous.source != next.source) {
+			Arrays.fill(cells, null);
+			Arrays.fill(centers, Double.NaN);
+			return;
+		}
+
+		for(int page=0;page<next.triangleCount();page+=MeshView.PAGE) {
+			if(next.sharesTriangles(previous, page)) continue;
+			int end = Math.min(page+MeshView.PAGE, next.triangleCount());
+			for(int t=page;t<end;t++) {
+				if(t < previous.triangleCount() && same(previous, next, t)) continue;
+				if(2*t < centers.length) centers[2*t] = Double.NaN;
+				drop(previous, t);
+				drop(next, t);
+			}
+		}
+	}
+
+	/**
+	 * True if slot t holds the same triangle with the same neighbours in
+	 * both views
+	 */
+	private static boolean same(MeshView a, MeshView b, int t) {
+		for(int i=0;i<3;i++)
+			if(a.vertex(t, i) != b.vertex(t, i) || a.neighbour(t, i) != b.neighbour(t, i)) return false;
+		return true;
+	}
+
+	/**
+	 * Drops the cells of the vertices of t in view
+	 */
+	private void drop(MeshView view, int t) {
+		if(!view.isLive(t)) return;
+		for(int i=0;i<3;i++) {
+			int v = view.vertex(t, i);
+			if(v < cells.length) cells[v] = null;
+		}
+	}
+
+	/**
+	 * Upper bound of the vertex numbers, sites are looked up in 0..vertexCount()-1
+	 */
+	public int vertexCount() {
+		return mesh != null ? mesh.vertexCount() : view.vertexCount();
+	}
+
+	/**
+	 * Site of vertex v, or null if v was removed or is a vertex of the
+	 * initial triangle, which has no closed cell
+	 */
+	public Point site(int v) {
+		if(v < 3 || v >= vertexCount() || triangleOf(v) == Mesh.NONE) return null;
+		return mesh != null ? mesh.point(v) : new Point(view.x(v), view.y(v));
+	}
+
+	/**
+	 * Cell of vertex v as x0,y0,x1,y1,... counter-clockwise. The array is
+	 * shared with the cache and must not be modified.
+	 */
+	public double[] cell(int v) {
+		if(site(v) == null) throw new IllegalArgumentException("No site at vertex "+v);
+		if(v >= cells.length) cells = Arrays.copyOf(cells, Math.max(2*cells.length, vertexCount()));
+		double[] cell = cells[v];
+		if(cell == null) cells[v] = cell = build(v);
+		return cell;
+	}
+
+	/**
+	 * Number of cells built since the diagram was made
+	 */
+	public int rebuiltCells() {
+		return rebuilt;
+	}
+
+	private double[] build(int v) {
+		int start = triangleOf(v), t = start;
+		int n = 0;
+		do {
+			n++;
+			t = around(t, v);
+		} while(t != start);
+
+		double[] cell = new double[2*n];
+		for(int k=0;k<n;k++) {
+			center(t);
+			cell[2*k] = centers[2*t];
+			cell[2*k+1] = centers[2*t+1];
+			t = around(t, v);
+		}
+		rebuilt++;
+		return cell;
+	}
+
+	private void center(int t) {
+		int count = mesh != null ? mesh.triangleCount() : view.triangleCount();
+		if(2*t >= centers.length) {
+			int n = centers.length;
+			centers = Arrays.copyOf(centers, Math.max(2*n, 2*count));
+			Arrays.fill(centers, n, centers.length, Double.NaN);
+		}
+		if(!Double.isNaN(centers[2*t])) return;
+		if(mesh != null) mesh.circumcenter(t, centers, 2*t);
+		else view.circumcenter(t, centers, 2*t);
+	}
+
+	private int triangleOf(int v) {
+		return mesh != null ? mesh.triangleOf(v) : view.triangleOf(v);
+	}
+
+	/**
+	 * The triangle after t counter-clockwise around its vertex v
+	 */
+	private int around(int t, int v) {
+		if(mesh != null) return mesh.neighbour(t, (mesh.indexOf(t, v)+1)%3);
+		return view.neighbour(t, (view.indexOf(t, v)+1)%3);
+	}
+
+	/**
+	 * Drops the cells of every vertex of a created triangle, which covers
+	 * the new site, the boundary of an insertion cavity and the link of a
+	 * removed site
+	 */
+	private void invalidate(Mesh mesh) {
+		for(int k=0;k<mesh.createdSize;k++) {
+			int t = mesh.created[k];
+			if(2*t < centers.length) centers[2*t] = Double.NaN;
+			for(int i=0;i<3;i++) {
+				int v = mesh.vertex(t, i);
+				if(v < cells.length) cells[v] = null;
+			}
+		}
+	}
+
+}
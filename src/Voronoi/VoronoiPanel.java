@@ -1,29 +1,97 @@
 package Voronoi;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
+/**
+ * Draws the diagram into cached offscreen layers: the filled cells or
+ * triangles, and one overlay each for the empty circles, the Delaunay
+ * edges and the Voronoi edges. A change only redraws the bounding box of
+ * the triangles and cells it touched, and showing an overlay just
+ * composites its layer.
+ *
+ * Points are placed by an InsertionWorker off the event thread, and the
+ * layers are drawn from the MeshView the triangulation publishes, so
+ * neither waits for the other. On the worker thread the boxes the
+ * changes touch add up; each view is handed over through an atomic
+ * reference with the box changed before it, and once a frame the view is
+ * taken up and that box repainted.
+ *
+ * The view maps a site at (x,y) to pixel (x*scale+originX, y*scale+originY).
+ * The wheel zooms about the cursor and dragging with any button but the
+ * first pans. Redrawing a region only visits the triangles whose empty
+ * circle meets it, found by walking the mesh from the site nearest to it,
+ * so a frame costs what is on screen rather than what is in the diagram.
+ * With levelOfDetail a cell or triangle less than detailPixels across is
+ * drawn as one pixel, and such edges and circles are left out.
+ */
 public class VoronoiPanel extends JPanel {
 	
+	private static final int BASE = 0, CIRCLES = 1, DELAUNAY = 2, VORONOI = 3;
+	private static final double MIN_SCALE = 1e-3, MAX_SCALE = 1e3;
+	private static final double ZOOM = 1.25;			// scale factor per wheel notch
+	
 	public static Color voronoiColor = Color.LIGHT_GRAY;
 	public static Color delaunayColor = Color.ORANGE;
 	public static int pointRadius = 3;
+	public static int frameMillis = 16;
+	public static boolean levelOfDetail = true;
+	public static int detailPixels = 3;
+	public static boolean integerCoordinates = false;
 	
 	private VoronoiApp controller;
+	private InsertionWorker worker;
+	private final AtomicReference<Frame> frames = new AtomicReference<Frame>();	// views not taken up yet
 	private Triangulation dt;
+	private MeshView view;							// what the layers show
+	private VoronoiDiagram cells;					// cells of the views shown
+	private boolean integer;						// sites snap to the integer grid
 	private Map<Object,Color> colorTable;
 	private Triangle initialTriangle;
 	private int initialSize = 10000;
 	private Graphics g;
+	private BufferedImage image;					// layer being redrawn
+	private Rectangle clip;							// and the region of it
 	private Random random = new Random();
+	private int[] polyX = new int[16], polyY = new int[16];
+	private int minX, minY, maxX, maxY;				// pixel box of the polygon last projected
+	private double[] triangle = new double[6];
+	private double[] center = new double[2];
+	private double[] corners = new double[6];
+	
+	private double scale = 1, originX = 0, originY = 0;
+	private int dragX, dragY;
+	
+	private int[] visible = new int[64];			// triangle slots or vertices to draw
+	private int visibleCount;
+	private int[] stack = new int[64];
+	private int[] stamp = new int[64];				// epoch a triangle slot or vertex was visited in
+	private int epoch = 0;
+	
+	private BufferedImage[] layers = new BufferedImage[4];
+	private Rectangle[] dirty = new Rectangle[4];		// region of each layer to redraw, null if none
+	private Color baseBackground;					// background the base layer was drawn on
+	private boolean baseVoronoi;					// whether it holds cells or triangles
 	
 	public VoronoiPanel(VoronoiApp controller) {
 		this.controller = controller;
@@ -33,16 +101,119 @@ public class VoronoiPanel extends JPanel {
 			new Point(0,initialSize)
 		);
 		
-		dt = new Triangulation(initialTriangle);
 		colorTable = new HashMap<Object,Color>();
+		clear();
+		worker = new InsertionWorker(dt);
+		
+		new Timer(frameMillis, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				takeFrame();
+			}
+		}).start();
+		
+		MouseAdapter view = new MouseAdapter() {
+			public void mousePressed(MouseEvent e) {
+				dragX = e.getX();
+				dragY = e.getY();
+			}
+			public void mouseDragged(MouseEvent e) {
+				if(SwingUtilities.isLeftMouseButton(e)) return;
+				pan(e.getX()-dragX, e.getY()-dragY);
+				dragX = e.getX();
+				dragY = e.getY();
+			}
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				zoom(Math.pow(ZOOM, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+			}
+		};
+		addMouseListener(view);
+		addMouseMotionListener(view);
+		addMouseWheelListener(view);
 	}
 	
+	/**
+	 * Queues point to be placed, returning at once
+	 */
 	public void addPoint(Point point) {
-		dt.delaunayPlace(point);
+		worker.add(point);
+	}
+	
+	/**
+	 * Queues points to be placed, as when replaying or pasting a set
+	 */
+	public void addPoints(Collection<? extends Point> points) {
+		worker.addAll(points);
+	}
+	
+	/**
+	 * Points queued and not placed yet
+	 */
+	public int pendingPoints() {
+		return worker.pending();
 	}
 	
+	/**
+	 * Starts over, dropping the points still queued
+	 */
 	public void clear() {
 		dt = new Triangulation(initialTriangle);
+		integer = integerCoordinates;
+		if(integer) dt.setCoordinates(Triangulation.Coordinates.INTEGER);
+		dt.addListener(new Changes(dt));
+		view = dt.share();
+		cells = new VoronoiDiagram(view);
+		if(worker != null) worker.clear(dt);
+		for(int k=0;k<layers.length;k++) markDirty(k, new Rectangle(getSize()));
+		repaint();
+	}
+	
+	/**
+	 * Site under pixel (x,y), rounded to the integer grid if the
+	 * triangulation takes integer coordinates
+	 */
+	public Point pointAt(int x, int y) {
+		double px = (x-originX)/scale, py = (y-originY)/scale;
+		if(integer) return new Point(Math.rint(px), Math.rint(py));
+		return new Point(px, py);
+	}
+	
+	public double getScale() {
+		return scale;
+	}
+	
+	/**
+	 * Scales the view by factor, keeping what is under pixel (x,y) there
+	 */
+	public void zoom(double factor, int x, int y) {
+		double s = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale*factor));
+		originX = x - (x-originX)/scale*s;
+		originY = y - (y-originY)/scale*s;
+		scale = s;
+		for(int k=0;k<layers.length;k++) dirty[k] = new Rectangle(getSize());
+		repaint();
+	}
+	
+	/**
+	 * Moves the view by (dx,dy) pixels. The layers are shifted along and
+	 * only the strips uncovered are redrawn.
+	 */
+	public void pan(int dx, int dy) {
+		if(dx == 0 && dy == 0) return;
+		originX += dx;
+		originY += dy;
+		for(int k=0;k<layers.length;k++) {
+			if(layers[k] == null) continue;
+			int width = layers[k].getWidth(), height = layers[k].getHeight();
+			Graphics2D g = layers[k].createGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.copyArea(0, 0, width, height, dx, dy);
+			g.dispose();
+			
+			if(dirty[k] != null) dirty[k].translate(dx, dy);
+			if(dx != 0) markDirty(k, new Rectangle(dx > 0 ? 0 : width+dx, 0, Math.abs(dx), height));
+			if(dy != 0) markDirty(k, new Rectangle(0, dy > 0 ? 0 : height+dy, width, Math.abs(dy)));
+		}
+		repaint();
 	}
 	
 	public Color getColor(Object item) {
@@ -54,18 +225,22 @@ public class VoronoiPanel extends JPanel {
 	
 	//draw a point
 	public void draw(Point p ) {
+		draw(p.coord(0), p.coord(1));
+	}
+	
+	private void draw(double px, double py) {
 		int r = pointRadius;
-		int x = (int)p.coord(0);
-		int y = (int)p.coord(1);
+		int x = screenX(px);
+		int y = screenY(py);
 		
 		g.fillOval(x-r, y-r, r+r, r+r);
 	}
 	
 	//draw a circle
 	public void draw(Point center, double radius, Color color) {
-		int x = (int)center.coord(0);
-		int y = (int)center.coord(1);
-		int r = (int) radius;
+		int x = screenX(center.coord(0));
+		int y = screenY(center.coord(1));
+		int r = (int) Math.min(1e6, radius*scale);
 		
 		if(color != null) {
 			Color tmp = g.getColor();
@@ -84,88 +259,497 @@ public class VoronoiPanel extends JPanel {
 		int[] x = new int[n];
 		int[] y = new int[n];
 		
-		for(int i=0;i<n;i++) x[i] = (int) polygon[i].coord(0);
-		for(int i=0;i<n;i++) y[i] = (int) polygon[i].coord(1);
+		for(int i=0;i<n;i++) x[i] = screenX(polygon[i].coord(0));
+		for(int i=0;i<n;i++) y[i] = screenY(polygon[i].coord(1));
 		
 		if(color != null) {
 			Color tmp = g.getColor();
 			g.setColor(color);
 			g.fillPolygon(x, y, n);
-			//System.out.println("HEre");
 			g.setColor(tmp);
 		}
 		
 		g.drawPolygon(x, y, n);
 	}
 	
-	public void paintComponent(Graphics g) {
-		super.paintComponent(g);
-		this.g = g;
+	//draw polygon given as x0,y0,x1,y1,...
+	public void draw(double[] polygon, Color color) {
+		
+		int n = project(polygon);
 		
-		Color temp = g.getColor();
-		if(!controller.isVoronoi()) g.setColor(delaunayColor);
-		else if(dt.contains(initialTriangle)) g.setColor(this.getBackground());
-		else g.setColor(voronoiColor);
+		if(color != null) {
+			Color tmp = g.getColor();
+			g.setColor(color);
+			g.fillPolygon(polyX, polyY, n);
+			g.setColor(tmp);
+		}
 		
-		g.fillRect(0, 0, this.getWidth(), this.getHeight());
-		g.setColor(temp);
+		g.drawPolygon(polyX, polyY, n);
+	}
+	
+	public void paintComponent(Graphics g) {
+		long start = Metrics.on ? System.nanoTime() : 0;
+		super.paintComponent(g);
+		paintLayers(g);
+		if(Metrics.on) Metrics.paint(System.nanoTime()-start);
+	}
+	
+	private void paintLayers(Graphics g) {
+		int width = Math.max(1, getWidth()), height = Math.max(1, getHeight());
+		if(layers[BASE] == null || layers[BASE].getWidth() != width || layers[BASE].getHeight() != height) {
+			layers[BASE] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			for(int k=1;k<layers.length;k++)
+				layers[k] = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			for(int k=0;k<layers.length;k++) dirty[k] = new Rectangle(width, height);
+		}
 		
-		if(controller.isVoronoi()) {
-			//System.out.println("There");
-			drawAllVoronoi(true,true);
+		Color background;
+		if(!controller.isVoronoi()) background = delaunayColor;
+		else if(view.size() == 1) background = this.getBackground();
+		else background = voronoiColor;
+		if(!background.equals(baseBackground) || baseVoronoi != controller.isVoronoi()) {
+			baseBackground = background;
+			baseVoronoi = controller.isVoronoi();
+			dirty[BASE] = new Rectangle(width, height);
 		}
-		else drawAllDelaunay(true);
 		
-		temp = g.getColor();
-		g.setColor(Color.white);
-		if(controller.showingCircles()) {
-			drawAllCircles();
-			System.out.println("HEre");
+		render(BASE);
+		g.drawImage(layers[BASE], 0, 0, null);
+		
+		int overlay = -1;
+		if(controller.showingCircles()) overlay = CIRCLES;
+		if(controller.showingVoronoi()) overlay = VORONOI;
+		if(controller.showingDelaunay()) overlay = DELAUNAY;
+		if(overlay != -1) {
+			render(overlay);
+			g.drawImage(layers[overlay], 0, 0, null);
 		}
-		if(controller.showingVoronoi()) drawAllVoronoi(false,false);
-		if(controller.showingDelaunay()) drawAllDelaunay(false);
+	}
+	
+	/**
+	 * Redraws the dirty region of a layer
+	 */
+	private void render(int layer) {
+		Rectangle region = dirty[layer];
+		if(region == null) return;
+		dirty[layer] = null;
 		
-		g.setColor(temp);
+		Graphics2D g = layers[layer].createGraphics();
+		g.clip(region);
+		if(layer == BASE) g.setColor(baseBackground);
+		else g.setComposite(AlphaComposite.Clear);
+		g.fillRect(region.x, region.y, region.width, region.height);
+		g.setComposite(AlphaComposite.SrcOver);
+		g.setColor(layer == BASE ? getForeground() : Color.white);
+		this.g = g;
+		image = layers[layer];
+		clip = region;
 		
+		collect(region);
+		switch(layer) {
+		case BASE:
+			if(baseVoronoi) drawAllVoronoi(region,true,true);
+			else drawAllDelaunay(region,true);
+			break;
+		case CIRCLES:
+			drawAllCircles(region);
+			break;
+		case VORONOI:
+			drawAllVoronoi(region,false,false);
+			break;
+		case DELAUNAY:
+			drawAllDelaunay(region,false);
+			break;
+		}
+		g.dispose();
+	}
+	
+	private void markDirty(int layer, Rectangle region) {
+		if(dirty[layer] == null) dirty[layer] = new Rectangle(region);
+		else dirty[layer].add(region);
+	}
+
+	private void drawAllDelaunay(Rectangle region, boolean fill) {
+		for(int k=0;k<visibleCount;k++) {
+			int t = visible[k];
+			for(int i=0;i<3;i++) {
+				int v = view.vertex(t, i);
+				triangle[2*i] = view.x(v);
+				triangle[2*i+1] = view.y(v);
+			}
+			project(triangle);
+			if(!intersects(region)) continue;
+			if(subPixel()) {
+				if(fill) plot(getColor(key(t)));
+				continue;
+			}
+			draw(triangle ,fill ? getColor(key(t)) : null);
+		}
 	}
 
-	private void drawAllDelaunay(boolean fill) {
-		for(Triangle tri : dt) {
-			Point[] vertices = tri.toArray(new Point[0]);
-			draw(vertices ,fill ? getColor(tri) : null);
+	private void drawAllCircles(Rectangle region) {
+		for(int k=0;k<visibleCount;k++) {
+			int t = visible[k];
+			if(view.isHull(t)) continue;
+			view.circumcenter(t, center, 0);
+			int a = view.vertex(t, 0);
+			double r = Math.hypot(center[0]-view.x(a), center[1]-view.y(a));
+			minX = screenX(center[0]-r);
+			minY = screenY(center[1]-r);
+			maxX = screenX(center[0]+r);
+			maxY = screenY(center[1]+r);
+			if(!intersects(region) || subPixel()) continue;
+			draw(new Point(center[0], center[1]), r, null);
 		}
 	}
 
-	private void drawAllCircles() {
+	private void drawAllVoronoi(Rectangle region, boolean site , boolean fill) {
+		sites();
+		for(int k=0;k<visibleCount;k++) {
+			int v = visible[k];
+			if(v < 3 || view.triangleOf(v) == Mesh.NONE) continue;
+			
+			double[] cell = cells.cell(v);
+			project(cell);
+			if(!intersects(region)) continue;
+			if(subPixel()) {
+				if(site) plot(g.getColor());
+				continue;
+			}
+			draw(cell,fill ? getColor(new Point(view.x(v), view.y(v))) : null);
+			if(site) draw(view.x(v), view.y(v));
+		}
+	}
+	
+	/**
+	 * Colour key of triangle t, the same for any triangle on its vertices
+	 */
+	private Long key(int t) {
+		int i = 0;
+		for(int j=1;j<3;j++)
+			if(view.vertex(t, j) < view.vertex(t, i)) i = j;
+		long key = view.vertex(t, i);
+		key = key*0x9E3779B97F4A7C15L + view.vertex(t, (i+1)%3);
+		return key*0x9E3779B97F4A7C15L + view.vertex(t, (i+2)%3);
+	}
+	
+	/**
+	 * Gathers the live triangles whose empty circle meets region, in slot
+	 * order. Those hold every triangle in region and, as a cell lies
+	 * within the circles of the triangles around its site, every triangle
+	 * of a cell in region.
+	 *
+	 * They are connected through neighbours, so a search from the
+	 * triangles around the site nearest to region finds them all. Circles
+	 * reaching out of the initial triangle only connect through its
+	 * outside, so if region does the triangles around the corners are
+	 * searched from too.
+	 */
+	private void collect(Rectangle region) {
+		int margin = pointRadius+1;
+		double x0 = (region.x-margin-originX)/scale, y0 = (region.y-margin-originY)/scale;
+		double x1 = (region.x+region.width+margin-originX)/scale, y1 = (region.y+region.height+margin-originY)/scale;
+		
+		nextEpoch(view.triangleCount());
+		int top = pushStar(view.nearestVertex((x0+x1)/2, (y0+y1)/2), 0);
+		for(int v=0;v<3;v++) {
+			corners[2*v] = view.x(v);
+			corners[2*v+1] = view.y(v);
+		}
+		if(!Triangulation.holds(corners, x0, y0, x1, y1))
+			for(int v=0;v<3;v++) top = pushStar(v, top);
 		
-		for(Triangle tri : dt) {
-			if(tri.containsAny(initialTriangle)) continue;
-			Point p = tri.getCircumcenter();
-			double radius = p.subtract(tri.get(0)).magnitude();
-			draw(p,radius,null);
+		visibleCount = 0;
+		while(top > 0) {
+			int t = stack[--top];
+			if(!meets(t, x0, y0, x1, y1)) continue;
+			visible = add(visible, visibleCount++, t);
+			for(int i=0;i<3;i++) {
+				int n = view.neighbour(t, i);
+				if(n == Mesh.NONE || stamp[n] == epoch) continue;
+				stamp[n] = epoch;
+				stack = add(stack, top++, n);
+			}
+		}
+		Arrays.sort(visible, 0, visibleCount);
+	}
+	
+	/**
+	 * Turns the triangles collected into their vertices, each once and
+	 * in order
+	 */
+	private void sites() {
+		nextEpoch(view.vertexCount());
+		int n = 0;
+		for(int k=0;k<visibleCount;k++) {
+			int t = visible[k];
+			for(int i=0;i<3;i++) {
+				int v = view.vertex(t, i);
+				if(stamp[v] == epoch) continue;
+				stamp[v] = epoch;
+				stack = add(stack, n++, v);
+			}
 		}
+		Arrays.sort(stack, 0, n);
+		if(visible.length < n) visible = new int[stack.length];
+		System.arraycopy(stack, 0, visible, 0, n);
+		visibleCount = n;
+	}
+	
+	/**
+	 * Pushes the triangles around vertex v not visited yet
+	 */
+	private int pushStar(int v, int top) {
+		int start = view.triangleOf(v);
+		if(start == Mesh.NONE) return top;
 		
+		//counter-clockwise, then clockwise from start if the fan is open
+		int t = start;
+		do {
+			if(stamp[t] != epoch) {
+				stamp[t] = epoch;
+				stack = add(stack, top++, t);
+			}
+			t = view.neighbour(t, (view.indexOf(t, v)+1)%3);
+		} while(t != start && t != Mesh.NONE);
+		if(t == Mesh.NONE) {
+			t = start;
+			while((t = view.neighbour(t, (view.indexOf(t, v)+2)%3)) != Mesh.NONE) {
+				if(stamp[t] == epoch) continue;
+				stamp[t] = epoch;
+				stack = add(stack, top++, t);
+			}
+		}
+		return top;
 	}
-
-	private void drawAllVoronoi(boolean site , boolean fill) {
-		HashSet<Point> done = new HashSet<>(initialTriangle);
-		for(Triangle tri : dt) 
-			for(Point p : tri) {
-				if(done.contains(p)) continue;
-				done.add(p);
-				List<Triangle> T = dt.surroundingTriangles(p, tri);
-				//System.out.println(T.size());
-				Point[] P = new Point[T.size()];
-				int i=0;
-				for(Triangle t : T) {
-					//System.out.println(t.getCircumcenter());
-					P[i++] = t.getCircumcenter();
+	
+	/**
+	 * True if the circle through t meets the box, or cannot be worked out
+	 */
+	private boolean meets(int t, double x0, double y0, double x1, double y1) {
+		view.circumcenter(t, center, 0);
+		int a = view.vertex(t, 0);
+		double ux = center[0]-view.x(a), uy = center[1]-view.y(a);
+		double dx = center[0] - Math.max(x0, Math.min(x1, center[0]));
+		double dy = center[1] - Math.max(y0, Math.min(y1, center[1]));
+		return !(dx*dx + dy*dy > ux*ux + uy*uy);
+	}
+	
+	private void nextEpoch(int size) {
+		if(stamp.length < size) stamp = new int[Math.max(size, 2*stamp.length)];
+		if(++epoch == 0) {
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+	
+	private static int[] add(int[] array, int at, int value) {
+		if(at == array.length) array = Arrays.copyOf(array, 2*at);
+		array[at] = value;
+		return array;
+	}
+	
+	/**
+	 * Takes up the view handed over last and repaints the box changed
+	 * since the one before
+	 */
+	private void takeFrame() {
+		Frame frame = frames.getAndSet(null);
+		if(frame == null || frame.dt != dt) return;
+		view = frame.view;
+		cells.follow(view);
+		if(frame.x0 > frame.x1) return;
+		
+		int margin = pointRadius+2;
+		int x0 = screenX(frame.x0)-margin, y0 = screenY(frame.y0)-margin;
+		Rectangle region = new Rectangle(x0, y0, screenX(frame.x1)+margin+1-x0, screenY(frame.y1)+margin+1-y0);
+		region = region.intersection(new Rectangle(getSize()));
+		if(region.isEmpty()) return;
+		for(int k=0;k<layers.length;k++) markDirty(k, region);
+		repaint(region);
+	}
+	
+	/**
+	 * A view of the triangulation shown and the box, in its coordinates,
+	 * of what changed since the view handed over before
+	 */
+	private static final class Frame {
+		
+		final Triangulation dt;
+		final MeshView view;
+		final double x0, y0, x1, y1;				// x0 > x1 if nothing changed
+		
+		Frame(Triangulation dt, MeshView view, double x0, double y0, double x1, double y1) {
+			this.dt = dt;
+			this.view = view;
+			this.x0 = x0;
+			this.y0 = y0;
+			this.x1 = x1;
+			this.y1 = y1;
+		}
+	}
+	
+	/**
+	 * Adds up, on the thread placing points, the box around everything
+	 * the changes drew differently, and hands it over with each view
+	 */
+	private final class Changes implements Triangulation.Listener {
+		
+		private final Triangulation dt;
+		private final VoronoiDiagram voronoi;
+		private float[] circleBounds = new float[64];	// box of the circle of each triangle slot, NaN if none
+		private final double[] triangle = new double[6];
+		private final double[] center = new double[2];
+		private final double[] box = new double[4];		// changed since the last view
+		
+		Changes(Triangulation dt) {
+			this.dt = dt;
+			voronoi = new VoronoiDiagram(dt);
+			Arrays.fill(circleBounds, Float.NaN);
+			reset();
+		}
+		
+		/**
+		 * Adds the created triangles and their circles, the circles of the
+		 * removed ones and the cells of all the sites involved
+		 */
+		public void changed(Mesh mesh) {
+			for(int k=0;k<mesh.cavitySize;k++) {
+				int t = mesh.cavity[k];
+				if(4*t < circleBounds.length && !Float.isNaN(circleBounds[4*t])) {
+					union(circleBounds, 4*t);
+					circleBounds[4*t] = Float.NaN;
 				}
-				
-				draw(P,fill ? getColor(p) : null);
-				if(site) draw(p);
-				
 			}
+			for(int k=0;k<mesh.createdSize;k++) {
+				int t = mesh.created[k];
+				for(int i=0;i<3;i++) {
+					int v = mesh.vertex(t, i);
+					triangle[2*i] = mesh.x(v);
+					triangle[2*i+1] = mesh.y(v);
+					if(voronoi.site(v) != null) union(voronoi.cell(v));
+				}
+				union(triangle);
+				if(circleBounds(mesh, t)) union(circleBounds, 4*t);
+			}
+		}
+		
+		/**
+		 * Hands view over, with the box of the views not taken up yet
+		 */
+		public void published(MeshView view) {
+			Frame old, next;
+			do {
+				old = frames.get();
+				if(old == null || old.dt != dt) next = new Frame(dt, view, box[0], box[1], box[2], box[3]);
+				else next = new Frame(dt, view, Math.min(box[0], old.x0), Math.min(box[1], old.y0),
+						Math.max(box[2], old.x1), Math.max(box[3], old.y1));
+			} while(!frames.compareAndSet(old, next));
+			reset();
+		}
+		
+		/**
+		 * Works out the box of the empty circle of t, unless it has a
+		 * vertex of the initial triangle and is not drawn
+		 */
+		private boolean circleBounds(Mesh mesh, int t) {
+			if(4*t >= circleBounds.length) {
+				int n = circleBounds.length;
+				circleBounds = Arrays.copyOf(circleBounds, Math.max(2*n, 4*mesh.triangleCount()));
+				Arrays.fill(circleBounds, n, circleBounds.length, Float.NaN);
+			}
+			if(mesh.isHull(t)) return false;
+			
+			mesh.circumcenter(t, center, 0);
+			int a = mesh.vertex(t, 0);
+			double ux = center[0]-mesh.x(a), uy = center[1]-mesh.y(a);
+			double r = Math.sqrt(ux*ux + uy*uy);
+			circleBounds[4*t] = (float)(center[0]-r);
+			circleBounds[4*t+1] = (float)(center[1]-r);
+			circleBounds[4*t+2] = (float)(center[0]+r);
+			circleBounds[4*t+3] = (float)(center[1]+r);
+			return true;
+		}
+		
+		private void reset() {
+			box[0] = box[1] = Double.POSITIVE_INFINITY;
+			box[2] = box[3] = Double.NEGATIVE_INFINITY;
+		}
+		
+		private void union(double[] polygon) {
+			for(int i=0;i<polygon.length;i+=2) union(polygon[i], polygon[i+1]);
+		}
+		
+		private void union(float[] bounds, int k) {
+			union(bounds[k], bounds[k+1]);
+			union(bounds[k+2], bounds[k+3]);
+		}
+		
+		private void union(double x, double y) {
+			box[0] = Math.min(box[0], x);
+			box[1] = Math.min(box[1], y);
+			box[2] = Math.max(box[2], x);
+			box[3] = Math.max(box[3], y);
+		}
+	}
+	
+	private int screenX(double x) {
+		return (int)Math.floor(Math.max(-1e6, Math.min(1e6, x*scale+originX)));
+	}
+	
+	private int screenY(double y) {
+		return (int)Math.floor(Math.max(-1e6, Math.min(1e6, y*scale+originY)));
+	}
+	
+	/**
+	 * Maps polygon x0,y0,x1,y1,... to pixels in polyX and polyY, noting its
+	 * pixel box, and returns the number of corners
+	 */
+	private int project(double[] polygon) {
+		int n = polygon.length/2;
+		if(polyX.length < n) {
+			polyX = new int[2*n];
+			polyY = new int[2*n];
+		}
+	
+		minX = minY = Integer.MAX_VALUE;
+		maxX = maxY = Integer.MIN_VALUE;
+		for(int i=0;i<n;i++) {
+			polyX[i] = screenX(polygon[2*i]);
+			polyY[i] = screenY(polygon[2*i+1]);
+			minX = Math.min(minX, polyX[i]);
+			minY = Math.min(minY, polyY[i]);
+			maxX = Math.max(maxX, polyX[i]);
+			maxY = Math.max(maxY, polyY[i]);
+		}
+		return n;
+	}
+	
+	/**
+	 * True if the box last projected is close enough to region to show
+	 */
+	private boolean intersects(Rectangle region) {
+		int margin = pointRadius+1;
+		return maxX+margin >= region.x && minX-margin <= region.x+region.width
+			&& maxY+margin >= region.y && minY-margin <= region.y+region.height;
+	}
+
+	/**
+	 * True if the box last projected is too small for its edges to show
+	 * and is plotted as a pixel instead
+	 */
+	private boolean subPixel() {
+		return levelOfDetail && maxX-minX < detailPixels && maxY-minY < detailPixels;
+	}
+	
+	/**
+	 * Sets the pixel in the middle of the box last projected right in the
+	 * layer, as going through the Graphics costs more than a pixel is worth
+	 */
+	private void plot(Color color) {
+		int x = (minX+maxX) >> 1, y = (minY+maxY) >> 1;
+		if(clip.contains(x, y) && x >= 0 && y >= 0 && x < image.getWidth() && y < image.getHeight())
+			image.setRGB(x, y, color.getRGB());
 	}
 
 }
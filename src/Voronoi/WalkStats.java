@@ -0,0 +1,59 @@
+package Voronoi;
+
+/**
+ * Point location counters of a Triangulation: how many walks were made,
+ * how many triangles they visited on each level of the hierarchy and how
+ * often a walk gave up and every triangle had to be checked.
+ *
+ * @author sohit
+ *
+ */
+public class WalkStats {
+
+	private final long locates;
+	private final long[] steps;
+	private final long fullScans;
+
+	public WalkStats(long locates, long[] steps, long fullScans) {
+		this.locates = locates;
+		this.steps = steps.clone();
+		this.fullScans = fullScans;
+	}
+
+	public long locates() {
+		return locates;
+	}
+
+	public long fullScans() {
+		return fullScans;
+	}
+
+	public int levels() {
+		return steps.length;
+	}
+
+	public long steps(int level) {
+		return steps[level];
+	}
+
+	public long steps() {
+		long sum = 0;
+		for(long s : steps) sum += s;
+		return sum;
+	}
+
+	public double meanSteps() {
+		return locates == 0 ? 0 : (double)steps()/locates;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append("WalkStats(locates="+locates+", mean steps="+String.format("%.2f", meanSteps()));
+		buf.append(", steps per level=");
+		for(int k=0;k<steps.length;k++) buf.append(k == 0 ? "" : "/").append(steps[k]);
+		buf.append(", full scans="+fullScans+")");
+		return buf.toString();
+	}
+
+}
@@ -0,0 +1,88 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Divide and conquer and streaming construction against incremental
+ * insertion
+ *
+ * @author sohit
+ *
+ */
+public class DivideAndConquerTest {
+
+	@Test
+	public void sameMeshAsIncremental() {
+		for(List<Point> points : TriangulationTest.inputs()) {
+			Triangulation incremental = new Triangulation(Meshes.initial(1000));
+			incremental.delaunayPlaceAll(points);
+			Triangulation dc = DivideAndConquer.build(Meshes.initial(1000), points);
+
+			Meshes.assertDelaunay(dc.mesh());
+			assertEquals(Meshes.triangles(incremental, false), Meshes.triangles(dc, false));
+		}
+	}
+
+	@Test
+	public void sameMeshOnOneThread() {
+		List<Point> points = Meshes.uniform(40000, 8, 1000);
+		ForkJoinPool single = new ForkJoinPool(1);
+		try {
+			assertEquals(Meshes.triangles(DivideAndConquer.build(Meshes.initial(1000), points), false),
+					Meshes.triangles(DivideAndConquer.build(Meshes.initial(1000), points, single), false));
+		} finally {
+			single.shutdown();
+		}
+	}
+
+	@Test
+	public void insertsAfterwards() {
+		List<Point> points = Meshes.uniform(2000, 9, 1000);
+		Triangulation dc = DivideAndConquer.build(Meshes.initial(1000), points.subList(0, 1000));
+		dc.delaunayPlaceAll(points.subList(1000, 2000));
+
+		Triangulation incremental = new Triangulation(Meshes.initial(1000));
+		incremental.delaunayPlaceAll(points);
+		assertEquals(Meshes.triangles(incremental, false), Meshes.triangles(dc, false));
+	}
+
+	@Test
+	public void growsLikeIncremental() {
+		List<Point> points = Meshes.uniform(3000, 17, 1000);
+		Triangulation incremental = new Triangulation(Meshes.initial(1));
+		incremental.delaunayPlaceAll(points);
+		Triangulation dc = DivideAndConquer.build(Meshes.initial(1), points);
+
+		Meshes.assertDelaunay(dc.mesh());
+		assertEquals(Meshes.triangles(incremental, false), Meshes.triangles(dc, false));
+	}
+
+	@Test
+	public void negativeZeroIsZero() {
+		List<Point> points = Meshes.uniform(500, 19, 1000);
+		points.add(new Point(0, 1));
+		points.add(new Point(-0.0, 1));
+		points.add(new Point(0, -0.0));
+		points.add(new Point(-0.0, 0));
+		Triangulation incremental = new Triangulation(Meshes.initial(1000));
+		incremental.delaunayPlaceAll(points);
+		Triangulation dc = DivideAndConquer.build(Meshes.initial(1000), points);
+
+		Meshes.assertDelaunay(dc.mesh());
+		assertEquals(incremental.size(), dc.size());
+		assertEquals(Meshes.triangles(incremental, false).size(), Meshes.triangles(dc, false).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNaN() {
+		List<Point> points = Meshes.uniform(100, 18, 1000);
+		points.add(new Point(Double.NaN, 0));
+		DivideAndConquer.build(Meshes.initial(1000), points);
+	}
+
+}
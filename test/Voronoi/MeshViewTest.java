@@ -0,0 +1,113 @@
+package Voronoi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Queries on published views, alone and while the triangulation changes
+ *
+ * @author sohit
+ *
+ */
+public class MeshViewTest {
+
+	@Test
+	public void queriesMatchTheTriangulation() {
+		List<Point> points = Meshes.uniform(3000, 20, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points);
+		MeshView view = dt.share();
+		VoronoiDiagram diagram = new VoronoiDiagram(dt);
+
+		Random random = new Random(21);
+		for(int i=0;i<1000;i++) {
+			Point p = new Point(random.nextDouble()*1200-100, random.nextDouble()*1200-100);
+			int v = view.nearestSite(p.coord(0), p.coord(1));
+			assertEquals(dt.nearestSite(p), new Point(view.x(v), view.y(v)));
+		}
+		for(int v=3;v<view.vertexCount();v++)
+			assertArrayEquals(diagram.cell(v), view.cell(v), 0);
+	}
+
+	@Test
+	public void readersSeeWholeViews() throws InterruptedException {
+		final List<Point> points = new ArrayList<Point>(new LinkedHashSet<Point>(Meshes.uniform(6000, 22, 1000)));
+		final Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.share();
+
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicInteger checked = new AtomicInteger();
+		List<Thread> readers = new ArrayList<Thread>();
+		for(int r=0;r<3;r++) {
+			final Random random = new Random(23+r);
+			Thread reader = new Thread() {
+				public void run() {
+					try {
+						while(!done.get()) {
+							check(dt.view(), random);
+							checked.incrementAndGet();
+						}
+					} catch(Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			};
+			reader.start();
+			readers.add(reader);
+		}
+
+		try {
+			for(Point p : points) dt.delaunayPlace(p);
+			for(int i=0;i<points.size();i+=3) dt.remove(points.get(i));
+		} finally {
+			done.set(true);
+			for(Thread reader : readers) reader.join();
+		}
+		assertNull(failure.get());
+		assertTrue(checked.get() > 0);
+		check(dt.view(), new Random(26));
+	}
+
+	/**
+	 * Checks the triangles a view holds agree with its sites and that a
+	 * few nearest site queries match brute force over them
+	 */
+	private static void check(MeshView view, Random random) {
+		int sites = 0;
+		for(int v=3;v<view.vertexCount();v++)
+			if(view.triangleOf(v) != Mesh.NONE) sites++;
+		assertEquals(2*sites+1, view.size());
+
+		for(int i=0;i<5;i++) {
+			double x = random.nextDouble()*1000, y = random.nextDouble()*1000;
+			int v = view.nearestSite(x, y);
+			if(sites == 0) {
+				assertEquals(Mesh.NONE, v);
+				continue;
+			}
+			double best = Double.POSITIVE_INFINITY;
+			for(int u=3;u<view.vertexCount();u++)
+				if(view.triangleOf(u) != Mesh.NONE) best = Math.min(best, square(view, u, x, y));
+			assertEquals(best, square(view, v, x, y), 0);
+		}
+	}
+
+	private static double square(MeshView view, int v, double x, double y) {
+		double dx = view.x(v)-x, dy = view.y(v)-y;
+		return dx*dx + dy*dy;
+	}
+
+}
@@ -0,0 +1,140 @@
+package Voronoi;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Inputs and mesh comparisons shared by the tests
+ *
+ * @author sohit
+ *
+ */
+final class Meshes {
+
+	private Meshes() {}
+
+	/**
+	 * An initial triangle far around the unit square scaled by size, so
+	 * nothing grows
+	 */
+	static Triangle initial(double size) {
+		return new Triangle(new Point(-100*size, -100*size), new Point(100*size, -100*size), new Point(0, 100*size));
+	}
+
+	static List<Point> uniform(int n, long seed, double size) {
+		Random random = new Random(seed);
+		List<Point> points = new ArrayList<Point>(n);
+		for(int i=0;i<n;i++) points.add(new Point(random.nextDouble()*size, random.nextDouble()*size));
+		return points;
+	}
+
+	/**
+	 * Integer points in [0,size)^2, some of them repeated
+	 */
+	static List<Point> integers(int n, long seed, int size) {
+		Random random = new Random(seed);
+		List<Point> points = new ArrayList<Point>(n);
+		for(int i=0;i<n;i++) points.add(new Point(random.nextInt(size), random.nextInt(size)));
+		return points;
+	}
+
+	/**
+	 * A side by side grid, every cell cocircular, shuffled
+	 */
+	static List<Point> grid(int side, long seed) {
+		List<Point> points = new ArrayList<Point>(side*side);
+		for(int i=0;i<side;i++)
+			for(int j=0;j<side;j++) points.add(new Point(i, j));
+		Collections.shuffle(points, new Random(seed));
+		return points;
+	}
+
+	static Triangulation incremental(Triangle initial, List<Point> points, Triangulation.Insertion insertion) {
+		Triangulation dt = new Triangulation(initial);
+		dt.setInsertion(insertion);
+		for(Point p : points) dt.delaunayPlace(p);
+		return dt;
+	}
+
+	/**
+	 * The live triangles of mesh by the coordinates of their vertices,
+	 * counter-clockwise from the least, leaving out those of the initial
+	 * triangle if sitesOnly
+	 */
+	static Set<String> triangles(Mesh mesh, boolean sitesOnly) {
+		Set<String> set = new TreeSet<String>();
+		for(int t=0;t<mesh.triangleCount();t++) {
+			if(!mesh.isLive(t) || (sitesOnly && mesh.isHull(t))) continue;
+			String[] key = new String[3];
+			for(int i=0;i<3;i++) key[i] = mesh.x(mesh.vertex(t, i))+","+mesh.y(mesh.vertex(t, i));
+			set.add(key(key[0], key[1], key[2]));
+		}
+		return set;
+	}
+
+	static Set<String> triangles(Triangulation dt, boolean sitesOnly) {
+		return triangles(dt.mesh(), sitesOnly);
+	}
+
+	static String key(String a, String b, String c) {
+		if(b.compareTo(a) < 0 && b.compareTo(c) < 0) return b+" "+c+" "+a;
+		if(c.compareTo(a) < 0 && c.compareTo(b) < 0) return c+" "+a+" "+b;
+		return a+" "+b+" "+c;
+	}
+
+	/**
+	 * Checks the neighbours of every live triangle point back at it and
+	 * that no vertex across an edge lies inside its circle
+	 */
+	static void assertDelaunay(Mesh mesh) {
+		for(int t=0;t<mesh.triangleCount();t++) {
+			if(!mesh.isLive(t)) continue;
+			assertTrue("triangle "+t+" is clockwise", mesh.orient(mesh.vertex(t, 0), mesh.vertex(t, 1), mesh.vertex(t, 2)) > 0);
+			for(int i=0;i<3;i++) {
+				int n = mesh.neighbour(t, i);
+				if(n == Mesh.NONE) continue;
+				assertTrue(mesh.isLive(n));
+				int j = mesh.indexOfNeighbour(n, t);
+				assertTrue("neighbours of "+t+" and "+n+" disagree", j != Mesh.NONE);
+				int d = mesh.vertex(n, j);
+				assertFalse("vertex "+d+" inside the circle of "+t, mesh.inCircle(t, mesh.x(d), mesh.y(d)) > 0);
+			}
+		}
+	}
+
+	/**
+	 * Checks that the triangles without a corner are Delaunay among
+	 * themselves and cover the convex hull of the sites, so their edges are
+	 * those of the Delaunay triangulation of the sites alone
+	 */
+	static void assertSiteDelaunay(Mesh mesh) {
+		for(int t=0;t<mesh.triangleCount();t++) {
+			if(!mesh.isLive(t)) continue;
+			assertTrue("triangle "+t+" is clockwise", mesh.orient(mesh.vertex(t, 0), mesh.vertex(t, 1), mesh.vertex(t, 2)) > 0);
+			for(int i=0;i<3;i++) {
+				int n = mesh.neighbour(t, i);
+				if(n == Mesh.NONE) continue;
+				int j = mesh.indexOfNeighbour(n, t);
+				assertTrue("neighbours of "+t+" and "+n+" disagree", j != Mesh.NONE);
+				int d = mesh.vertex(n, j);
+				if(!mesh.isHull(t) && !mesh.isHull(n))
+					assertFalse("vertex "+d+" inside the circle of "+t, mesh.inCircle(t, mesh.x(d), mesh.y(d)) > 0);
+
+				//an edge of sites facing a corner has every site on its far side
+				int u = mesh.vertex(t, (i+1)%3), w = mesh.vertex(t, (i+2)%3);
+				if(u < 3 || w < 3 || mesh.vertex(t, i) >= 3) continue;
+				for(int s=3;s<mesh.vertexCount();s++)
+					if(mesh.triangleOf(s) != Mesh.NONE)
+						assertTrue("site "+s+" outside the hull edge "+u+","+w, mesh.orient(u, w, s) <= 0);
+			}
+		}
+	}
+
+}
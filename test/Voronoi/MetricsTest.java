@@ -0,0 +1,82 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * The counters after a known amount of work, read directly and through
+ * JMX. The build runs the tests with -Dvoronoi.metrics=true.
+ *
+ * @author sohit
+ *
+ */
+public class MetricsTest {
+
+	@Test
+	public void countsTheWork() {
+		Metrics metrics = Metrics.get();
+		assertTrue(metrics.isEnabled());
+		metrics.reset();
+
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(Meshes.uniform(5000, 90, 1000));
+		for(Point p : Meshes.uniform(100, 91, 1000)) dt.delaunayPlace(p);
+
+		assertEquals(5100, metrics.getInserts());
+		assertEquals(metrics.getInserts(), sum(metrics.getCavitySizeHistogram()));
+		assertTrue(metrics.getWalks() >= 100);
+		assertEquals(metrics.getWalks(), sum(metrics.getWalkLengthHistogram()));
+		assertEquals(0, metrics.getFullScans());
+		assertTrue(metrics.getOrientCalls() > metrics.getWalks());
+		assertTrue(metrics.getIncircleCalls() > metrics.getInserts());
+
+		//the exact path only for inputs the filter cannot decide
+		long exact = metrics.getExactPredicates();
+		Point.orient2d(0, 0, 1, 1, 2, 2);
+		Point.orient2d(0, 0, 1, 1, 2, 3);
+		assertEquals(exact+1, metrics.getExactPredicates());
+
+		metrics.reset();
+		assertEquals(0, metrics.getInserts());
+		assertEquals(0, sum(metrics.getWalkLengthHistogram()));
+	}
+
+	@Test
+	public void timesThePainting() {
+		Metrics metrics = Metrics.get();
+		metrics.reset();
+		Metrics.paint(3000000);
+		Metrics.paint(1000000);
+		assertEquals(2, metrics.getFrames());
+		assertEquals(2, metrics.getMeanPaintMillis(), 1e-9);
+		long[] micros = metrics.getPaintMicrosHistogram();
+		assertEquals(1, micros[10]);		// 1000 us
+		assertEquals(1, micros[12]);		// 3000 us
+	}
+
+	@Test
+	public void registersOnce() throws JMException {
+		Metrics.register();
+		Metrics.register();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(Metrics.NAME);
+		assertTrue(server.isRegistered(name));
+		assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+		assertEquals(Metrics.get().getInserts(), server.getAttribute(name, "Inserts"));
+	}
+
+	private static long sum(long[] histogram) {
+		long sum = 0;
+		for(long n : histogram) sum += n;
+		return sum;
+	}
+
+}
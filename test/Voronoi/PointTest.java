@@ -0,0 +1,113 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The adaptive predicates and the expansions behind them against exact
+ * BigDecimal arithmetic, on inputs too close to degenerate for doubles
+ *
+ * @author sohit
+ *
+ */
+public class PointTest {
+
+	@Test
+	public void orient2dIsExactNearALine() {
+		//Kettner et al.: a grid of ulps around a point of the line y=x
+		double u = Math.ulp(0.5);
+		for(int i=0;i<64;i++)
+			for(int j=0;j<64;j++) {
+				double px = 0.5+i*u, py = 0.5+j*u;
+				assertEquals(px+","+py, exactOrient(px, py, 12, 12, 24, 24), Math.signum(Point.orient2d(px, py, 12, 12, 24, 24)), 0);
+				assertEquals(px+","+py, exactOrient(24, 24, px, py, 12, 12), Math.signum(Point.orient2d(24, 24, px, py, 12, 12)), 0);
+			}
+
+		Random random = new Random(50);
+		for(int k=0;k<10000;k++) {
+			double ax = random.nextDouble(), ay = random.nextDouble();
+			double bx = random.nextDouble()*1e6, by = random.nextDouble()*1e6;
+			double t = random.nextDouble();
+			double cx = ax+t*(bx-ax), cy = ay+t*(by-ay);
+			cx += (random.nextInt(5)-2)*Math.ulp(cx);
+			assertEquals(exactOrient(ax, ay, bx, by, cx, cy), Math.signum(Point.orient2d(ax, ay, bx, by, cx, cy)), 0);
+		}
+	}
+
+	@Test
+	public void incircleIsExactNearACircle() {
+		Random random = new Random(51);
+		for(int k=0;k<10000;k++) {
+			double r = Math.pow(10, random.nextInt(7)-2), x0 = random.nextDouble()*r, y0 = random.nextDouble()*r;
+			double[] p = new double[8];
+			for(int i=0;i<4;i++) {
+				double angle = 2*Math.PI*(i+random.nextDouble())/4;
+				p[2*i] = x0+r*Math.cos(angle);
+				p[2*i+1] = y0+r*Math.sin(angle);
+			}
+			p[6] += (random.nextInt(5)-2)*Math.ulp(p[6]);
+			assertEquals(exactIncircle(p), Math.signum(Point.incircle(p[0], p[1], p[2], p[3], p[4], p[5], p[6], p[7])), 0);
+		}
+
+		//exactly on the circle: a square, and integer points of a circle of radius 5
+		assertEquals(0, Point.incircle(0, 0, 1, 0, 1, 1, 0, 1), 0);
+		assertEquals(0, Point.incircle(-3, 4, 3, -4, 5, 0, 0, 5), 0);
+	}
+
+	@Test
+	public void expansionsAreExact() {
+		Random random = new Random(52);
+		for(int k=0;k<2000;k++) {
+			double a = random.nextGaussian()*Math.pow(2, random.nextInt(100)-50);
+			double b = random.nextGaussian()*Math.pow(2, random.nextInt(100)-50);
+			double c = random.nextGaussian()*Math.pow(2, random.nextInt(100)-50);
+			double d = random.nextGaussian()*Math.pow(2, random.nextInt(100)-50);
+
+			double[] e = Expansion.diff(a, b), f = Expansion.diff(c, d);
+			BigDecimal be = exact(a).subtract(exact(b)), bf = exact(c).subtract(exact(d));
+			assertEquals(0, be.compareTo(value(e)));
+			assertEquals(0, be.add(bf).compareTo(value(Expansion.sum(e, f))));
+			assertEquals(0, be.multiply(bf).compareTo(value(Expansion.multiply(e, f))));
+			assertEquals(0, be.multiply(exact(c)).compareTo(value(Expansion.scale(e, c))));
+			assertEquals(0, be.negate().compareTo(value(Expansion.negate(e))));
+			double[] product = Expansion.multiply(e, f);
+			assertEquals(be.multiply(bf).signum(), Math.signum(product[product.length-1]), 0);
+		}
+	}
+
+	private static double exactOrient(double ax, double ay, double bx, double by, double cx, double cy) {
+		BigDecimal left = exact(ax).subtract(exact(cx)).multiply(exact(by).subtract(exact(cy)));
+		BigDecimal right = exact(ay).subtract(exact(cy)).multiply(exact(bx).subtract(exact(cx)));
+		return left.subtract(right).signum();
+	}
+
+	private static double exactIncircle(double[] p) {
+		BigDecimal[] d = new BigDecimal[6];
+		for(int i=0;i<3;i++) {
+			d[2*i] = exact(p[2*i]).subtract(exact(p[6]));
+			d[2*i+1] = exact(p[2*i+1]).subtract(exact(p[7]));
+		}
+		BigDecimal det = BigDecimal.ZERO;
+		for(int i=0;i<3;i++) {
+			int j = (i+1)%3, k = (i+2)%3;
+			BigDecimal lift = d[2*i].multiply(d[2*i]).add(d[2*i+1].multiply(d[2*i+1]));
+			det = det.add(lift.multiply(d[2*j].multiply(d[2*k+1]).subtract(d[2*k].multiply(d[2*j+1]))));
+		}
+		return det.signum();
+	}
+
+	private static BigDecimal exact(double value) {
+		return new BigDecimal(value);
+	}
+
+	private static BigDecimal value(double[] expansion) {
+		BigDecimal sum = BigDecimal.ZERO;
+		for(double e : expansion) sum = sum.add(exact(e));
+		return sum;
+	}
+
+}
@@ -0,0 +1,196 @@
+package Voronoi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * The site graph, minimum spanning tree, Gabriel and relative
+ * neighbourhood graphs against brute force
+ *
+ * @author sohit
+ *
+ */
+public class SiteGraphTest {
+
+	@Test
+	public void rowsAreTheDelaunayEdges() {
+		for(List<Point> points : TriangulationTest.inputs()) {
+			Triangulation dt = new Triangulation(Meshes.initial(1000));
+			dt.delaunayPlaceAll(points);
+			SiteGraph graph = new SiteGraph(dt, true);
+
+			//with the hull edges a corner hides put back
+			Mesh mesh = dt.mesh().closedHull();
+			Meshes.assertSiteDelaunay(mesh);
+			Set<Long> edges = new HashSet<Long>();
+			for(int t=0;t<mesh.triangleCount();t++) {
+				if(!mesh.isLive(t)) continue;
+				for(int i=0;i<3;i++) {
+					int u = graph.node(mesh.vertex(t, i)), w = graph.node(mesh.vertex(t, (i+1)%3));
+					if(u >= 0 && w >= 0) edges.add((long)u*graph.size()+w);
+				}
+			}
+			assertEquals(TriangulationTest.sites(mesh), graph.size());
+			assertEquals(edges, edges(graph));
+			assertEquals(edges.size(), 2*graph.edgeCount());
+			for(int i=0;i<graph.size();i++) {
+				assertEquals(i, graph.node(graph.vertex(i)));
+				for(int k=graph.offsets()[i];k<graph.offsets()[i+1];k++)
+					assertEquals(Math.hypot(graph.x(i)-graph.x(graph.targets()[k]), graph.y(i)-graph.y(graph.targets()[k])), graph.lengths()[k], 1e-9);
+			}
+
+			ForkJoinPool single = new ForkJoinPool(1);
+			try {
+				SiteGraph one = new SiteGraph(dt, true, single);
+				assertArrayEquals(graph.offsets(), one.offsets());
+				assertArrayEquals(graph.targets(), one.targets());
+			} finally {
+				single.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void minimumSpanningTreeMatchesPrim() {
+		for(List<Point> points : inputs()) {
+			Triangulation dt = new Triangulation(Meshes.initial(1000));
+			dt.delaunayPlaceAll(points);
+			SiteGraph tree = dt.euclideanMST();
+			int n = tree.size();
+			assertEquals(n-1, tree.edgeCount());
+
+			//Prim over all pairs
+			double[] best = new double[n];
+			boolean[] in = new boolean[n];
+			Arrays.fill(best, Double.POSITIVE_INFINITY);
+			best[0] = 0;
+			double total = 0;
+			for(int step=0;step<n;step++) {
+				int u = -1;
+				for(int i=0;i<n;i++)
+					if(!in[i] && (u < 0 || best[i] < best[u])) u = i;
+				in[u] = true;
+				total += best[u];
+				for(int i=0;i<n;i++)
+					if(!in[i]) best[i] = Math.min(best[i], Math.hypot(tree.x(i)-tree.x(u), tree.y(i)-tree.y(u)));
+			}
+
+			double sum = 0;
+			for(double length : tree.lengths()) sum += length;
+			assertEquals(total, sum/2, 1e-9*total);
+			assertEquals(1, components(tree));
+		}
+	}
+
+	@Test
+	public void proximityGraphsMatchBruteForce() {
+		for(List<Point> points : inputs()) {
+			Triangulation dt = new Triangulation(Meshes.initial(1000));
+			dt.delaunayPlaceAll(points);
+			SiteGraph graph = new SiteGraph(dt);
+			int n = graph.size();
+
+			Set<Long> gabriel = new HashSet<Long>(), relative = new HashSet<Long>();
+			for(int i=0;i<n;i++)
+				for(int w=0;w<n;w++) {
+					if(w == i) continue;
+					double d = square(graph, i, w);
+					boolean g = true, r = true;
+					for(int p=0;p<n && (g || r);p++) {
+						if(p == i || p == w) continue;
+						double pi = square(graph, p, i), pw = square(graph, p, w);
+						if(pi + pw <= d) g = false;
+						if(pi < d && pw < d) r = false;
+					}
+					if(g) gabriel.add((long)i*n+w);
+					if(r) relative.add((long)i*n+w);
+				}
+			assertEquals(gabriel, edges(dt.gabrielGraph()));
+			assertEquals(relative, edges(dt.relativeNeighborhoodGraph()));
+		}
+	}
+
+	@Test
+	public void nearCornersKeepTheHullEdges() {
+		for(List<Point> points : inputs()) {
+			Triangulation far = new Triangulation(Meshes.initial(1000));
+			far.delaunayPlaceAll(points);
+			Triangulation near = new Triangulation(Meshes.initial(0.01));
+			near.delaunayPlaceAll(points);
+			Meshes.assertDelaunay(near.mesh());
+			Meshes.assertSiteDelaunay(near.mesh().closedHull());
+
+			assertEquals(keys(new SiteGraph(far)), keys(new SiteGraph(near)));
+			assertEquals(keys(far.gabrielGraph()), keys(near.gabrielGraph()));
+			assertEquals(keys(far.relativeNeighborhoodGraph()), keys(near.relativeNeighborhoodGraph()));
+			assertEquals(keys(far.euclideanMST()), keys(near.euclideanMST()));
+		}
+	}
+
+	private static List<List<Point>> inputs() {
+		List<List<Point>> inputs = new ArrayList<List<Point>>();
+		inputs.add(Meshes.uniform(800, 12, 1000));
+		inputs.add(Meshes.grid(25, 13));
+		inputs.add(Meshes.integers(600, 14, 40));
+		return inputs;
+	}
+
+	private static double square(SiteGraph graph, int i, int w) {
+		double dx = graph.x(i)-graph.x(w), dy = graph.y(i)-graph.y(w);
+		return dx*dx + dy*dy;
+	}
+
+	private static Set<Long> edges(SiteGraph graph) {
+		Set<Long> edges = new HashSet<Long>();
+		for(int i=0;i<graph.size();i++)
+			for(int k=graph.offsets()[i];k<graph.offsets()[i+1];k++) {
+				assertTrue(edges.add((long)i*graph.size()+graph.targets()[k]));
+			}
+		return edges;
+	}
+
+	/**
+	 * Edges by the coordinates of their ends, which the vertex numbers of
+	 * two triangulations need not share
+	 */
+	private static Set<String> keys(SiteGraph graph) {
+		Set<String> keys = new HashSet<String>();
+		for(int i=0;i<graph.size();i++)
+			for(int k=graph.offsets()[i];k<graph.offsets()[i+1];k++)
+				keys.add(graph.x(i)+","+graph.y(i)+" "+graph.x(graph.targets()[k])+","+graph.y(graph.targets()[k]));
+		return keys;
+	}
+
+	private static int components(SiteGraph graph) {
+		int[] seen = new int[graph.size()];
+		int[] stack = new int[graph.size()];
+		int count = 0;
+		for(int s=0;s<graph.size();s++) {
+			if(seen[s] != 0) continue;
+			count++;
+			int top = 0;
+			stack[top++] = s;
+			seen[s] = count;
+			while(top > 0) {
+				int u = stack[--top];
+				for(int k=graph.offsets()[u];k<graph.offsets()[u+1];k++)
+					if(seen[graph.targets()[k]] == 0) {
+						seen[graph.targets()[k]] = count;
+						stack[top++] = graph.targets()[k];
+					}
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,84 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The site index against a HashMap of points, through additions and the
+ * removals that shift probe runs back
+ *
+ * @author sohit
+ *
+ */
+public class SiteIndexTest {
+
+	@Test
+	public void findsWhatAHashMapFinds() {
+		Mesh mesh = new Mesh();
+		SiteIndex index = new SiteIndex(mesh);
+		Map<Point,Integer> expected = new HashMap<Point,Integer>();
+		List<Point> added = new ArrayList<Point>();
+		Random random = new Random(80);
+
+		for(int round=0;round<20;round++) {
+			//a small grid, so probe runs are long and collide often
+			for(int i=0;i<500;i++) {
+				Point p = new Point(random.nextInt(60), random.nextInt(60));
+				if(expected.containsKey(p)) continue;
+				int v = mesh.addVertex(p.coord(0), p.coord(1), p);
+				index.add(v);
+				expected.put(p, v);
+				added.add(p);
+			}
+			for(int i=0;i<200 && !added.isEmpty();i++) {
+				Point p = added.remove(random.nextInt(added.size()));
+				index.remove(expected.remove(p));
+			}
+
+			assertEquals(expected.size(), index.size());
+			for(int x=-1;x<=60;x++)
+				for(int y=-1;y<=60;y++) {
+					Integer v = expected.get(new Point(x, y));
+					assertEquals(v == null ? Mesh.NONE : v.intValue(), index.find(x, y));
+				}
+		}
+	}
+
+	@Test
+	public void negativeZeroIsZero() {
+		Mesh mesh = new Mesh();
+		SiteIndex index = new SiteIndex(mesh);
+		int v = mesh.addVertex(-0.0, 3, null);
+		index.add(v);
+		assertEquals(v, index.find(0.0, 3));
+		assertEquals(v, index.find(-0.0, 3));
+
+		assertEquals(new Point(0.0, -0.0), new Point(-0.0, 0.0));
+		assertEquals(new Point(0.0, -0.0).hashCode(), new Point(-0.0, 0.0).hashCode());
+		assertFalse(new Point(0.0, 1).equals(new Point(1, 0.0)));
+
+		index.remove(v);
+		assertEquals(Mesh.NONE, index.find(0.0, 3));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void indexesTheSitesOfAMesh() {
+		List<Point> points = Meshes.uniform(2000, 81, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points);
+		SiteIndex index = new SiteIndex(dt.mesh());
+		assertEquals(points.size()+3, index.size());
+		for(Point p : points) assertEquals(p, dt.mesh().point(index.find(p.coord(0), p.coord(1))));
+		assertEquals(Mesh.NONE, index.find(-1, -1));
+	}
+
+}
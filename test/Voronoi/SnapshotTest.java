@@ -0,0 +1,88 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writing and reading snapshots
+ *
+ * @author sohit
+ *
+ */
+public class SnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTrip() throws IOException {
+		List<Point> points = Meshes.uniform(20000, 10, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points.subList(0, 10000));
+		for(int i=0;i<1000;i++) dt.remove(points.get(i));
+
+		File file = folder.newFile("dt.snap");
+		Snapshot.write(dt, file);
+		Triangulation read = Snapshot.read(file);
+		Meshes.assertDelaunay(read.mesh());
+		assertEquals(Meshes.triangles(dt, false), Meshes.triangles(read, false));
+		assertEquals(dt.hierarchy().levels(), read.hierarchy().levels());
+
+		//both go on the same way
+		dt.delaunayPlaceAll(points.subList(10000, 20000));
+		read.delaunayPlaceAll(points.subList(10000, 20000));
+		for(int i=1000;i<2000;i++) {
+			dt.remove(points.get(i));
+			read.remove(points.get(i));
+		}
+		assertEquals(Meshes.triangles(dt, false), Meshes.triangles(read, false));
+	}
+
+	@Test
+	public void keepsIntegerCoordinates() throws IOException {
+		List<Point> points = Meshes.integers(3000, 19, 500);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.setCoordinates(Triangulation.Coordinates.INTEGER);
+		dt.delaunayPlaceAll(points);
+
+		File file = folder.newFile("int.snap");
+		Snapshot.write(dt, file);
+		Triangulation read = Snapshot.read(file);
+		assertEquals(Triangulation.Coordinates.INTEGER, read.getCoordinates());
+		assertEquals(Meshes.triangles(dt, false), Meshes.triangles(read, false));
+		try {
+			read.delaunayPlace(new Point(0.5, 0.5));
+			fail("placed a fraction in integer mode");
+		} catch(IllegalArgumentException e) {
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsCorruption() throws IOException {
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(Meshes.uniform(100, 11, 1000));
+		File file = folder.newFile("bad.snap");
+		Snapshot.write(dt, file);
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(raf.length()-5);
+			int b = raf.read();
+			raf.seek(raf.length()-5);
+			raf.write(b ^ 1);
+		} finally {
+			raf.close();
+		}
+		Snapshot.read(file);
+	}
+
+}
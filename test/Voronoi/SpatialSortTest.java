@@ -0,0 +1,82 @@
+package Voronoi;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Insertion orders are permutations of the points, and Hilbert orders
+ * keep neighbours close
+ *
+ * @author sohit
+ *
+ */
+public class SpatialSortTest {
+
+	@Test
+	public void brioIsAPermutation() {
+		Random random = new Random(60);
+		for(int n : new int[] {0, 1, 63, 64, 65, 1000, 20000}) {
+			double[] xy = points(n, random);
+			assertPermutation(SpatialSort.brio(xy, n, random), n);
+			assertPermutation(SpatialSort.hilbert(xy, n), n);
+		}
+
+		//every point at the same place
+		double[] same = new double[2000];
+		assertPermutation(SpatialSort.brio(same, 1000, random), 1000);
+	}
+
+	@Test
+	public void hilbertOrderStaysClose() {
+		int n = 20000;
+		double[] xy = points(n, new Random(61));
+		int[] order = SpatialSort.hilbert(xy, n);
+		assertTrue(length(xy, order) < length(xy, identity(n))/20);
+	}
+
+	@Test
+	public void cellOrderIsAPermutation() {
+		Random random = new Random(62);
+		for(int n : new int[] {0, 1, 15, 16, 1000, 100000}) {
+			double[] xy = points(n, random);
+			int[] order = SpatialSort.hilbertCells(xy, n);
+			assertPermutation(order, n);
+			if(n >= 1000) assertTrue(length(xy, order) < length(xy, identity(n))/3);
+		}
+	}
+
+	private static double[] points(int n, Random random) {
+		double[] xy = new double[2*n];
+		for(int i=0;i<2*n;i++) xy[i] = random.nextDouble()*1000;
+		return xy;
+	}
+
+	private static int[] identity(int n) {
+		int[] order = new int[n];
+		for(int i=0;i<n;i++) order[i] = i;
+		return order;
+	}
+
+	/**
+	 * Length of the path through the points in order
+	 */
+	private static double length(double[] xy, int[] order) {
+		double sum = 0;
+		for(int i=1;i<order.length;i++)
+			sum += Math.hypot(xy[2*order[i]]-xy[2*order[i-1]], xy[2*order[i]+1]-xy[2*order[i-1]+1]);
+		return sum;
+	}
+
+	private static void assertPermutation(int[] order, int n) {
+		assertTrue(order.length == n);
+		boolean[] seen = new boolean[n];
+		for(int i : order) {
+			assertTrue(i >= 0 && i < n && !seen[i]);
+			seen[i] = true;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Streaming construction against incremental insertion
+ *
+ * @author sohit
+ *
+ */
+public class StreamingTriangulationTest {
+
+	private final Set<String> emitted = new TreeSet<String>();
+
+	@Test
+	public void emitsTheTrianglesOfTheSites() throws IOException {
+		for(List<Point> points : TriangulationTest.inputs()) {
+			List<Point> sorted = new ArrayList<Point>(points);
+			Collections.sort(sorted, new Comparator<Point>() {
+				public int compare(Point p, Point q) {
+					return Double.compare(p.coord(0), q.coord(0));
+				}
+			});
+
+			StreamingTriangulation stream = stream(Meshes.initial(1000), sorted);
+			Triangulation incremental = new Triangulation(Meshes.initial(1000));
+			incremental.delaunayPlaceAll(points);
+			assertEquals(Meshes.triangles(incremental.mesh().closedHull(), true), emitted);
+			assertEquals(emitted.size(), stream.emitted());
+			assertTrue(stream.maxActiveTriangles() < incremental.size());
+		}
+	}
+
+	@Test
+	public void closesTheHullNearCorners() throws IOException {
+		List<Point> points = new ArrayList<Point>();
+		for(Point p : Meshes.uniform(2000, 27, 100)) points.add(new Point(p.coord(0)-50, p.coord(1)-50));
+		Triangulation incremental = new Triangulation(Meshes.initial(2));
+		incremental.delaunayPlaceAll(points);
+		Mesh closed = incremental.mesh().closedHull();
+		assertTrue("no hull edge hidden", closed != incremental.mesh());
+
+		Collections.sort(points, new Comparator<Point>() {
+			public int compare(Point p, Point q) {
+				return Double.compare(p.coord(0), q.coord(0));
+			}
+		});
+		stream(Meshes.initial(2), points);
+		assertEquals(Meshes.triangles(closed, true), emitted);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnsortedPoints() throws IOException {
+		StreamingTriangulation stream = new StreamingTriangulation(Meshes.initial(10), new StreamingTriangulation.Sink() {
+			public void triangle(double ax, double ay, double bx, double by, double cx, double cy) {}
+		});
+		stream.add(2, 0);
+		stream.add(1, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNaN() throws IOException {
+		StreamingTriangulation stream = new StreamingTriangulation(Meshes.initial(10), new StreamingTriangulation.Sink() {
+			public void triangle(double ax, double ay, double bx, double by, double cx, double cy) {}
+		});
+		stream.add(1, 0);
+		stream.add(2, Double.NaN);
+	}
+
+	/**
+	 * Streams sorted, collecting what it emits into emitted
+	 */
+	private StreamingTriangulation stream(Triangle initial, List<Point> sorted) throws IOException {
+		emitted.clear();
+		StreamingTriangulation stream = new StreamingTriangulation(initial, new StreamingTriangulation.Sink() {
+			public void triangle(double ax, double ay, double bx, double by, double cx, double cy) {
+				emitted.add(Meshes.key(ax+","+ay, bx+","+by, cx+","+cy));
+			}
+		}, 256);
+		for(Point p : sorted) stream.add(p.coord(0), p.coord(1));
+		stream.finish();
+		return stream;
+	}
+
+}
@@ -0,0 +1,213 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Insertion engines, removal, nearest sites and the integer mode, each
+ * against a plain build or brute force
+ *
+ * @author sohit
+ *
+ */
+public class TriangulationTest {
+
+	@Test
+	public void enginesBuildTheSameMesh() {
+		for(List<Point> points : inputs()) {
+			Triangulation bowyerWatson = Meshes.incremental(Meshes.initial(1000), points, Triangulation.Insertion.BOWYER_WATSON);
+			Triangulation lawson = Meshes.incremental(Meshes.initial(1000), points, Triangulation.Insertion.LAWSON);
+			Triangulation bulk = new Triangulation(Meshes.initial(1000));
+			bulk.delaunayPlaceAll(points);
+
+			Meshes.assertDelaunay(bowyerWatson.mesh());
+			assertEquals(Meshes.triangles(bowyerWatson, false), Meshes.triangles(lawson, false));
+			assertEquals(Meshes.triangles(bowyerWatson, false), Meshes.triangles(bulk, false));
+		}
+	}
+
+	@Test
+	public void growingKeepsTheSites() {
+		List<Point> points = Meshes.uniform(2000, 1, 1000);
+		Triangulation small = new Triangulation(new Triangle(new Point(-1, -1), new Point(1, -1), new Point(0, 1)));
+		small.delaunayPlaceAll(points);
+		Meshes.assertDelaunay(small.mesh());
+		assertEquals(points.size(), sites(small.mesh()));
+	}
+
+	@Test
+	public void growsForPointsOnTheInitialEdges() {
+		for(Triangulation.Insertion insertion : Triangulation.Insertion.values()) {
+			Triangulation dt = new Triangulation(new Triangle(new Point(-10000, -10000), new Point(10000, -10000), new Point(0, 10000)));
+			dt.setInsertion(insertion);
+			dt.delaunayPlace(new Point(1, 1));
+			dt.delaunayPlace(new Point(0, -10000));
+			dt.delaunayPlace(new Point(5000, 0));
+			Meshes.assertDelaunay(dt.mesh());
+			assertEquals(3, sites(dt.mesh()));
+			assertEquals(new Point(0, -10000), dt.nearestSite(new Point(0, -9000)));
+		}
+	}
+
+	@Test
+	public void removeMatchesFreshBuild() {
+		for(List<Point> input : inputs()) {
+			List<Point> points = new ArrayList<Point>(new LinkedHashSet<Point>(input));
+			Triangulation dt = new Triangulation(Meshes.initial(1000));
+			dt.delaunayPlaceAll(points);
+			List<Point> kept = new ArrayList<Point>();
+			for(int i=0;i<points.size();i++) {
+				if(i%3 == 0) dt.remove(points.get(i));
+				else kept.add(points.get(i));
+			}
+			Meshes.assertDelaunay(dt.mesh());
+
+			Triangulation fresh = new Triangulation(Meshes.initial(1000));
+			fresh.delaunayPlaceAll(kept);
+			assertEquals(Meshes.triangles(fresh, false), Meshes.triangles(dt, false));
+		}
+	}
+
+	@Test
+	public void removeAndAddAgainReusesVertices() {
+		List<Point> points = Meshes.uniform(20000, 15, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points);
+		assertEquals(20003, dt.mesh().vertexCount());
+
+		for(int round=0;round<5;round++) {
+			List<Point> half = points.subList(round%2*10000, round%2*10000+10000);
+			for(Point p : half) dt.remove(p);
+			dt.delaunayPlaceAll(half);
+			assertEquals(20003, dt.mesh().vertexCount());
+			for(int k=1;k<dt.hierarchy().levels();k++) {
+				Mesh level = dt.hierarchy().level(k);
+				assertTrue("level "+k+" holds "+level.vertexCount()+" vertices", level.vertexCount() < 20 + 2*sites(level));
+			}
+		}
+		Meshes.assertDelaunay(dt.mesh());
+
+		Triangulation fresh = new Triangulation(Meshes.initial(1000));
+		fresh.delaunayPlaceAll(points);
+		assertEquals(Meshes.triangles(fresh, false), Meshes.triangles(dt, false));
+	}
+
+	@Test
+	public void updateMatchesPlace() {
+		List<Point> points = new ArrayList<Point>(new LinkedHashSet<Point>(Meshes.uniform(5000, 16, 1000)));
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		for(Point p : points) dt.update(p, dt.getCavity(p, dt.locate(p)));
+		Meshes.assertDelaunay(dt.mesh());
+		assertTrue(dt.hierarchy().levels() > 1);
+
+		Triangulation fresh = new Triangulation(Meshes.initial(1000));
+		for(Point p : points) fresh.delaunayPlace(p);
+		assertEquals(Meshes.triangles(fresh, false), Meshes.triangles(dt, false));
+		for(int i=0;i<points.size();i+=7) assertEquals(points.get(i), dt.nearestSite(points.get(i)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void updateRejectsSites() {
+		Triangulation dt = new Triangulation(Meshes.initial(10));
+		Point p = new Point(1, 1);
+		dt.delaunayPlace(p);
+		dt.update(p, dt.getCavity(p, dt.locate(p)));
+	}
+
+	@Test
+	public void removeMissingSite() {
+		Triangulation dt = new Triangulation(Meshes.initial(10));
+		dt.delaunayPlace(new Point(1, 1));
+		assertFalse(dt.remove(new Point(2, 2)));
+		assertTrue(dt.remove(new Point(1, 1)));
+		assertEquals(1, dt.size());
+	}
+
+	@Test
+	public void nearestMatchesBruteForce() {
+		List<Point> points = Meshes.uniform(3000, 2, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		assertNull(dt.nearestSite(new Point(1, 1)));
+		dt.delaunayPlaceAll(points);
+
+		Random random = new Random(3);
+		int n = 2000;
+		double[] xs = new double[n], ys = new double[n];
+		for(int i=0;i<n;i++) {
+			//some queries far outside the sites
+			double scale = i%10 == 0 ? 1e5 : 1200;
+			xs[i] = (random.nextDouble()-0.1)*scale;
+			ys[i] = (random.nextDouble()-0.1)*scale;
+		}
+		int[] out = new int[n];
+		dt.nearestSites(xs, ys, out);
+
+		for(int i=0;i<n;i++) {
+			double best = Double.POSITIVE_INFINITY;
+			for(Point p : points) best = Math.min(best, distance(p, xs[i], ys[i]));
+			assertEquals(best, distance(dt.nearestSite(new Point(xs[i], ys[i])), xs[i], ys[i]), 0);
+			assertEquals(best, distance(dt.mesh().point(out[i]), xs[i], ys[i]), 0);
+		}
+	}
+
+	@Test
+	public void integerModeMatchesDoubleMode() {
+		List<Point> points = Meshes.integers(5000, 4, 300);
+		Triangle initial = new Triangle(new Point(-100000, -100000), new Point(100000, -100000), new Point(0, 100000));
+		Triangulation doubles = new Triangulation(initial);
+		doubles.delaunayPlaceAll(points);
+
+		Triangulation integers = new Triangulation(new Triangle(new Point(-100000, -100000), new Point(100000, -100000), new Point(0, 100000)));
+		integers.setCoordinates(Triangulation.Coordinates.INTEGER);
+		integers.delaunayPlaceAll(points);
+
+		assertEquals(Triangulation.Coordinates.INTEGER, integers.getCoordinates());
+		Meshes.assertDelaunay(integers.mesh());
+		assertEquals(Meshes.triangles(doubles, false), Meshes.triangles(integers, false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void integerModeRejectsFractions() {
+		Triangulation dt = new Triangulation(Meshes.initial(10));
+		dt.setCoordinates(Triangulation.Coordinates.INTEGER);
+		dt.delaunayPlace(new Point(0.5, 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNaN() {
+		new Triangulation(Meshes.initial(10)).delaunayPlace(new Point(Double.NaN, 1));
+	}
+
+	/**
+	 * Random, cocircular and repeated points
+	 */
+	static List<List<Point>> inputs() {
+		List<List<Point>> inputs = new ArrayList<List<Point>>();
+		inputs.add(Meshes.uniform(3000, 5, 1000));
+		inputs.add(Meshes.grid(40, 6));
+		inputs.add(Meshes.integers(2000, 7, 50));
+		return inputs;
+	}
+
+	static int sites(Mesh mesh) {
+		int n = 0;
+		for(int v=3;v<mesh.vertexCount();v++)
+			if(mesh.triangleOf(v) != Mesh.NONE) n++;
+		return n;
+	}
+
+	private static double distance(Point p, double x, double y) {
+		double dx = p.coord(0)-x, dy = p.coord(1)-y;
+		return dx*dx + dy*dy;
+	}
+
+}
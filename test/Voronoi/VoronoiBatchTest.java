@@ -0,0 +1,172 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The batch driver's output against the triangulation it describes, and
+ * its exit status on bad input and arguments
+ *
+ * @author sohit
+ *
+ */
+public class VoronoiBatchTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void writesTheTrianglesAndEdgesOfTheSites() throws IOException {
+		List<Point> points = points();
+		File input = csv(points);
+		Triangulation dt = new Triangulation(Meshes.initial(100));
+		dt.delaunayPlaceAll(points);
+		Mesh closed = dt.mesh().closedHull();
+		assertTrue(closed != dt.mesh());
+		Meshes.assertSiteDelaunay(closed);
+		Set<String> triangles = Meshes.triangles(closed, true);
+
+		for(String method : new String[] {"incremental", "lawson", "dc"}) {
+			File output = folder.newFile();
+			assertEquals(0, VoronoiBatch.execute("-q", "-m", method, "-i", input.getPath(), "-o", output.getPath()));
+			assertEquals(method, triangles, triangles(output));
+
+			assertEquals(0, VoronoiBatch.execute("-q", "-m", method, "-w", "edges", "-i", input.getPath(), "-o", output.getPath()));
+			assertEquals(method, edges(closed), edges(output));
+		}
+	}
+
+	@Test
+	public void streamsTheSameTriangles() throws IOException {
+		List<Point> points = points();
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points);
+
+		Collections.sort(points, new Comparator<Point>() {
+			public int compare(Point p, Point q) {
+				return Double.compare(p.coord(0), q.coord(0));
+			}
+		});
+		File output = folder.newFile();
+		assertEquals(0, VoronoiBatch.execute("-q", "-m", "stream", "-i", csv(points).getPath(), "-o", output.getPath()));
+		assertEquals(Meshes.triangles(dt.mesh().closedHull(), true), triangles(output));
+	}
+
+	@Test
+	public void writesACellPerSite() throws IOException {
+		List<Point> points = Meshes.uniform(300, 41, 1000);
+		File output = folder.newFile();
+		assertEquals(0, VoronoiBatch.execute("-q", "-w", "cells", "-i", csv(points).getPath(), "-o", output.getPath()));
+		List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+		assertEquals(points.size(), lines.size());
+		for(String line : lines) assertTrue(line.split(",").length >= 6);
+	}
+
+	@Test
+	public void failsOnNaN() throws IOException {
+		List<Point> points = Meshes.uniform(100, 42, 1000);
+		points.add(new Point(Double.NaN, 1));
+		String input = csv(points).getPath();
+		for(String method : new String[] {"incremental", "lawson", "dc"})
+			assertEquals(method, 1, VoronoiBatch.execute("-q", "-m", method, "-i", input, "-o", folder.newFile().getPath()));
+
+		List<Point> sorted = new ArrayList<Point>();
+		sorted.add(new Point(0, Double.NaN));
+		sorted.add(new Point(1, 1));
+		assertEquals(1, VoronoiBatch.execute("-q", "-m", "stream", "-i", csv(sorted).getPath(), "-o", folder.newFile().getPath()));
+	}
+
+	@Test
+	public void rejectsIntegerWithoutIncremental() throws IOException {
+		String input = csv(Meshes.integers(50, 43, 100)).getPath();
+		for(String method : new String[] {"dc", "stream"})
+			assertEquals(method, 2, VoronoiBatch.execute("-q", "--integer", "-m", method, "-i", input, "-o", folder.newFile().getPath()));
+		assertEquals(0, VoronoiBatch.execute("-q", "--integer", "-m", "lawson", "-i", input, "-o", folder.newFile().getPath()));
+	}
+
+	@Test
+	public void rejectsBadArguments() throws IOException {
+		assertEquals(2, VoronoiBatch.execute("-q", "-w", "polygons"));
+		assertEquals(2, VoronoiBatch.execute("-q", "-b", "0"));
+		assertEquals(2, VoronoiBatch.execute("-i"));
+	}
+
+	/**
+	 * Random sites over a row of nearly collinear ones, whose hull edges a
+	 * corner of the initial triangle hides
+	 */
+	private static List<Point> points() {
+		List<Point> points = Meshes.uniform(1000, 40, 1000);
+		for(int i=0;i<=10;i++) points.add(new Point(100*i, -1-1e-6*i*(10-i)));
+		return points;
+	}
+
+	private File csv(List<Point> points) throws IOException {
+		File file = folder.newFile();
+		PrintWriter writer = new PrintWriter(file, "UTF-8");
+		try {
+			writer.println("x,y");
+			for(Point p : points) writer.println(p.coord(0)+","+p.coord(1));
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private static Set<String> triangles(File file) throws IOException {
+		Set<String> set = new TreeSet<String>();
+		for(String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			String[] c = line.split(",");
+			assertEquals(6, c.length);
+			assertTrue(set.add(Meshes.key(c[0]+","+c[1], c[2]+","+c[3], c[4]+","+c[5])));
+		}
+		return set;
+	}
+
+	private static Set<String> edges(File file) throws IOException {
+		Set<String> set = new HashSet<String>();
+		for(String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			String[] c = line.split(",");
+			assertEquals(4, c.length);
+			assertTrue(set.add(edge(c[0]+","+c[1], c[2]+","+c[3])));
+		}
+		return set;
+	}
+
+	/**
+	 * The edges between sites of the live triangles of mesh
+	 */
+	private static Set<String> edges(Mesh mesh) {
+		Set<String> set = new HashSet<String>();
+		for(int t=0;t<mesh.triangleCount();t++) {
+			if(!mesh.isLive(t)) continue;
+			for(int i=0;i<3;i++) {
+				int a = mesh.vertex(t, i), b = mesh.vertex(t, (i+1)%3);
+				if(a >= 3 && b >= 3) set.add(edge(mesh.x(a)+","+mesh.y(a), mesh.x(b)+","+mesh.y(b)));
+			}
+		}
+		return set;
+	}
+
+	private static String edge(String a, String b) {
+		return a.compareTo(b) < 0 ? a+" "+b : b+" "+a;
+	}
+
+}
@@ -0,0 +1,115 @@
+package Voronoi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Cached cells against cells built afresh, after insertions, removals
+ * and on published views
+ *
+ * @author sohit
+ *
+ */
+public class VoronoiDiagramTest {
+
+	@Test
+	public void cellsAreTheCircumcentersAroundTheSites() {
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(Meshes.uniform(500, 30, 1000));
+		VoronoiDiagram diagram = new VoronoiDiagram(dt);
+		Mesh mesh = dt.mesh();
+
+		assertNull(diagram.site(0));
+		for(int v=3;v<mesh.vertexCount();v++) {
+			double[] cell = diagram.cell(v);
+			int start = mesh.triangleOf(v), t = start, k = 0;
+			double[] center = new double[2];
+			do {
+				mesh.circumcenter(t, center, 0);
+				assertEquals(center[0], cell[k++], 0);
+				assertEquals(center[1], cell[k++], 0);
+				t = mesh.neighbour(t, (mesh.indexOf(t, v)+1)%3);
+			} while(t != start);
+			assertEquals(cell.length, k);
+			assertSame(cell, diagram.cell(v));
+		}
+		assertEquals(mesh.vertexCount()-3, diagram.rebuiltCells());
+	}
+
+	@Test
+	public void changesRebuildOnlyTheCellsAroundThem() {
+		List<Point> points = Meshes.uniform(3000, 31, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points.subList(0, 2000));
+		VoronoiDiagram diagram = new VoronoiDiagram(dt);
+		all(diagram);
+
+		for(int i=2000;i<3000;i++) {
+			int before = diagram.rebuiltCells();
+			dt.delaunayPlace(points.get(i));
+			if(i%2 == 0) dt.remove(points.get(i-1000));
+			all(diagram);
+			assertTrue(diagram.rebuiltCells()-before < 40);
+		}
+		assertCells(fresh(dt), diagram);
+	}
+
+	@Test
+	public void followsPublishedViews() {
+		List<Point> points = Meshes.uniform(4000, 32, 1000);
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(points.subList(0, 3000));
+		VoronoiDiagram diagram = new VoronoiDiagram(dt.share());
+		assertNull(diagram.triangulation());
+		all(diagram);
+
+		for(int i=3000;i<4000;i+=4) {
+			int before = diagram.rebuiltCells();
+			for(int k=i;k<i+4;k++) dt.delaunayPlace(points.get(k));
+			dt.remove(points.get(i-3000));
+			MeshView view = dt.view();
+			diagram.follow(view);
+			all(diagram);
+			assertTrue(diagram.rebuiltCells()-before < 100);
+			for(int v=3;v<view.vertexCount();v++)
+				if(view.triangleOf(v) != Mesh.NONE) assertArrayEquals(view.cell(v), diagram.cell(v), 0);
+		}
+
+		//a view of another triangulation starts over
+		Triangulation other = new Triangulation(Meshes.initial(1000));
+		other.delaunayPlaceAll(points.subList(0, 100));
+		diagram.follow(other.share());
+		assertCells(fresh(other), diagram);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void aDiagramOfATriangulationFollowsNoViews() {
+		Triangulation dt = new Triangulation(Meshes.initial(10));
+		new VoronoiDiagram(dt).follow(dt.share());
+	}
+
+	private static VoronoiDiagram fresh(Triangulation dt) {
+		return new VoronoiDiagram(dt);
+	}
+
+	private static void all(VoronoiDiagram diagram) {
+		for(int v=0;v<diagram.vertexCount();v++)
+			if(diagram.site(v) != null) diagram.cell(v);
+	}
+
+	private static void assertCells(VoronoiDiagram expected, VoronoiDiagram actual) {
+		assertEquals(expected.vertexCount(), actual.vertexCount());
+		for(int v=0;v<expected.vertexCount();v++) {
+			assertEquals(expected.site(v), actual.site(v));
+			if(expected.site(v) != null) assertArrayEquals(expected.cell(v), actual.cell(v), 0);
+		}
+	}
+
+}
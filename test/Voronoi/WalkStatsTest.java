@@ -0,0 +1,52 @@
+package Voronoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Walk counters of the point location, through the hierarchy
+ *
+ * @author sohit
+ *
+ */
+public class WalkStatsTest {
+
+	@Test
+	public void countsEveryLocate() {
+		Triangulation dt = new Triangulation(Meshes.initial(1000));
+		dt.delaunayPlaceAll(Meshes.uniform(50000, 70, 1000));
+		dt.resetWalkStats();
+
+		Random random = new Random(71);
+		for(int i=0;i<1000;i++) dt.locate(new Point(random.nextDouble()*1000, random.nextDouble()*1000));
+		WalkStats stats = dt.walkStats();
+		assertEquals(1000, stats.locates());
+		assertEquals(dt.hierarchy().levels(), stats.levels());
+		assertTrue(stats.levels() > 1);
+		assertEquals(0, stats.fullScans());
+
+		long sum = 0;
+		for(int k=0;k<stats.levels();k++) sum += stats.steps(k);
+		assertEquals(sum, stats.steps());
+		//a walk from the vertex of the last insertion would cross ~sqrt(n) triangles
+		assertTrue(stats.meanSteps() < 100);
+
+		dt.resetWalkStats();
+		assertEquals(0, dt.walkStats().locates());
+		assertEquals(0, dt.walkStats().steps());
+	}
+
+	@Test
+	public void summary() {
+		WalkStats stats = new WalkStats(4, new long[] {10, 6}, 1);
+		assertEquals(16, stats.steps());
+		assertEquals(4, stats.meanSteps(), 0);
+		assertTrue(stats.toString().endsWith("steps per level=10/6, full scans=1)"));
+		assertEquals(0, new WalkStats(0, new long[0], 0).meanSteps(), 0);
+	}
+
+}